@@ -0,0 +1,48 @@
+package com.artemyakkonen.emailnotificationmicroservice.config;
+
+import com.artemyakkonen.emailnotificationmicroservice.sender.SmtpConnectionPool;
+import com.artemyakkonen.emailnotificationmicroservice.sender.SmtpEmailSender;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * SMTP delivery with app.email.sender=smtp; otherwise LoggingEmailSender only logs the emails.
+ * app.email.smtp.pool.size is the number of sessions kept open, and so the number of emails sent at once.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.email", name = "sender", havingValue = "smtp")
+public class EmailConfig {
+
+    @Autowired
+    Environment environment;
+
+    @Bean
+    SmtpConnectionPool smtpConnectionPool(){
+        return SmtpConnectionPool.builder()
+                .host(environment.getProperty("app.email.smtp.host", "localhost"))
+                .port(environment.getProperty("app.email.smtp.port", Integer.class, 587))
+                .username(environment.getProperty("app.email.smtp.username"))
+                .password(environment.getProperty("app.email.smtp.password"))
+                .startTls(environment.getProperty("app.email.smtp.starttls", Boolean.class, true))
+                .size(environment.getProperty("app.email.smtp.pool.size", Integer.class, 8))
+                .maxMessagesPerConnection(
+                        environment.getProperty("app.email.smtp.pool.max-messages-per-connection", Integer.class, 100))
+                .borrowTimeout(Duration.ofMillis(
+                        environment.getProperty("app.email.smtp.pool.borrow-timeout-ms", Long.class, 30000L)))
+                .validateAfterIdle(Duration.ofMillis(
+                        environment.getProperty("app.email.smtp.pool.validate-after-idle-ms", Long.class, 10000L)))
+                .timeout(Duration.ofMillis(environment.getProperty("app.email.smtp.timeout-ms", Long.class, 10000L)))
+                .build();
+    }
+
+    @Bean
+    SmtpEmailSender smtpEmailSender(SmtpConnectionPool smtpConnectionPool){
+        return new SmtpEmailSender(smtpConnectionPool,
+                environment.getProperty("app.email.from", "no-reply@artemyakkonen.com"));
+    }
+}
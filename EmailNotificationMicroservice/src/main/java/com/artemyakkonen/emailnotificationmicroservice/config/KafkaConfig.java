@@ -2,11 +2,17 @@ package com.artemyakkonen.emailnotificationmicroservice.config;
 
 import com.artemyakkonen.emailnotificationmicroservice.exception.NonRetryableException;
 import com.artemyakkonen.emailnotificationmicroservice.exception.RetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.handler.UserEventsParallelHandler;
+import com.artemyakkonen.emailnotificationmicroservice.parallel.KeyOrderedParallelConsumer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
@@ -14,21 +20,34 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.RetryListener;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.springframework.util.backoff.FixedBackOff;
 
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 
+/**
+ * Listener containers time every record (every batch for batch listeners) as spring.kafka.listener;
+ * the client factories export kafka.consumer.* metrics, records lag included, and kafka.producer.* for the DLT producer.
+ */
 @Configuration
 public class KafkaConfig {
 
     @Autowired
     Environment environment;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @Bean
     ConsumerFactory<String, Object> consumerFactory(){
         Map<String, Object> config = new HashMap<>();
@@ -40,23 +59,131 @@ public class KafkaConfig {
         config.put(JsonDeserializer.TRUSTED_PACKAGES,
                 environment.getProperty("spring.kafka.consumer.properties.spring.json.trusted.packages"));
 //        config.put(ConsumerConfig.GROUP_ID_CONFIG, environment.getProperty("spring.kafka.consumer.group-id"));
-        return new DefaultKafkaConsumerFactory<>(config);
+        DefaultKafkaConsumerFactory<String, Object> factory = new DefaultKafkaConsumerFactory<>(config);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
     ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
             ConsumerFactory<String, Object> consumerFactory, KafkaTemplate kafkaTemplate){
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setCommonErrorHandler(errorHandler(kafkaTemplate));
+        return factory;
+    }
+
+    /**
+     * Batch listeners for the email command topic and, in batch mode, for user events. A failing
+     * record is reported with BatchListenerFailedException, so the records before it are committed
+     * and only the failing one is retried or sent to the DLT.
+     */
+    @Bean
+    ConcurrentKafkaListenerContainerFactory<String, Object> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory, KafkaTemplate kafkaTemplate){
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setCommonErrorHandler(errorHandler(kafkaTemplate));
+        factory.setBatchListener(true);
+        factory.setConcurrency(environment.getProperty("app.kafka.email-requests.concurrency", Integer.class, 1));
+        return factory;
+    }
+
+    /**
+     * Non-blocking retries for user events in record mode: a failed record is republished to
+     * -retry-5000, -retry-60000 and -retry-600000 (exponential back off, app.kafka.user-events.retry)
+     * and consumed from there once its delay is over, so the records behind it keep flowing.
+     * NonRetryableException and deserialization failures go to -dlt right away.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.kafka.listener", name = "mode", havingValue = "record", matchIfMissing = true)
+    RetryTopicConfiguration userEventsRetryTopics(KafkaTemplate<String, Object> kafkaTemplate){
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopics(List.of("user-created-events-topic", "user-deleted-events-topic"))
+                .exponentialBackoff(
+                        environment.getProperty("app.kafka.user-events.retry.initial-interval-ms", Long.class, 5000L),
+                        environment.getProperty("app.kafka.user-events.retry.multiplier", Double.class, 12.0),
+                        environment.getProperty("app.kafka.user-events.retry.max-interval-ms", Long.class, 600000L))
+                .maxAttempts(environment.getProperty("app.kafka.user-events.retry.max-attempts", Integer.class, 4))
+                .notRetryOn(NonRetryableException.class)
+                .traversingCauses()
+                .autoCreateTopicsWith(
+                        environment.getProperty("app.kafka.user-events.retry.partitions", Integer.class, 3),
+                        environment.getProperty("app.kafka.user-events.retry.replicas", Short.class, (short) -1))
+                .dltHandlerMethod("userEventsDltHandler", "handle")
+                .create(kafkaTemplate);
+    }
+
+    /**
+     * Parallel mode for user events: records are processed on virtual threads in order per key (user id),
+     * up to app.kafka.user-events.parallel.max-in-flight at once regardless of the partition count.
+     * Retries and the DLT work like in the error handler of the listener containers.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "app.kafka.listener", name = "mode", havingValue = "parallel")
+    KeyOrderedParallelConsumer<String, Object> userEventsParallelConsumer(ConsumerFactory<String, Object> consumerFactory,
+            KafkaTemplate kafkaTemplate, UserEventsParallelHandler userEventsParallelHandler){
+        Properties consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG,
+                environment.getProperty("app.kafka.user-events.max-poll-records", "500"));
+
+        return KeyOrderedParallelConsumer.<String, Object>builder()
+                .consumerFactory(consumerFactory)
+                .groupId("user-events")
+                .topics(List.of("user-created-events-topic", "user-deleted-events-topic"))
+                .processor(userEventsParallelHandler::handle)
+                .recoverer(new DeadLetterPublishingRecoverer(kafkaTemplate))
+                .backOff(new FixedBackOff(3000, 3))
+                .retryable(e -> !(e instanceof NonRetryableException))
+                .retryListener(errorMetrics())
+                .maxInFlight(environment.getProperty("app.kafka.user-events.parallel.max-in-flight", Integer.class, 256))
+                .pollTimeout(Duration.ofMillis(
+                        environment.getProperty("app.kafka.user-events.parallel.poll-timeout-ms", Long.class, 100L)))
+                .restartInterval(Duration.ofMillis(
+                        environment.getProperty("app.kafka.user-events.parallel.restart-interval-ms", Long.class, 5000L)))
+                .consumerProperties(consumerProperties)
+                .build();
+    }
+
+    private DefaultErrorHandler errorHandler(KafkaTemplate kafkaTemplate){
         DefaultErrorHandler errorHandler = new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaTemplate),
                 new FixedBackOff(3000, 3));
 
         errorHandler.addNotRetryableExceptions(NonRetryableException.class);
         errorHandler.addRetryableExceptions(RetryableException.class);
+        errorHandler.setRetryListeners(errorMetrics());
 
+        return errorHandler;
+    }
 
-        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory);
-        factory.setCommonErrorHandler(errorHandler);
-        return factory;
+    /**
+     * Counts redeliveries and records published to or failed to publish to the DLT, per source topic.
+     */
+    private RetryListener errorMetrics(){
+        return new RetryListener() {
+            @Override
+            public void failedDelivery(ConsumerRecord<?, ?> record, Exception ex, int deliveryAttempt) {
+                counter("kafka.consumer.delivery.failures", record, ex).increment();
+            }
+
+            @Override
+            public void recovered(ConsumerRecord<?, ?> record, Exception ex) {
+                counter("kafka.consumer.dlt.published", record, ex).increment();
+            }
+
+            @Override
+            public void recoveryFailed(ConsumerRecord<?, ?> record, Exception original, Exception failure) {
+                counter("kafka.consumer.dlt.failures", record, original).increment();
+            }
+        };
+    }
+
+    private Counter counter(String name, ConsumerRecord<?, ?> record, Exception ex){
+        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+        return Counter.builder(name)
+                .tag("topic", record.topic())
+                .tag("exception", cause.getClass().getSimpleName())
+                .register(meterRegistry);
     }
 
     @Bean
@@ -74,6 +201,8 @@ public class KafkaConfig {
         config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
                 JsonSerializer.class);
 
-        return new DefaultKafkaProducerFactory<>(config);
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(config);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 }
@@ -0,0 +1,31 @@
+package com.artemyakkonen.emailnotificationmicroservice.config;
+
+import com.artemyakkonen.emailnotificationmicroservice.handler.UserNotifications;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Templates are compiled for app.email.templates.locales; other locales get the variant of their
+ * language or of app.email.templates.default-locale.
+ */
+@Configuration
+public class NotificationTemplateConfig {
+
+    @Autowired
+    Environment environment;
+
+    @Bean
+    UserNotifications userNotifications(){
+        var locales = Arrays.stream(environment.getProperty("app.email.templates.locales", String[].class,
+                        new String[]{"en"}))
+                .map(Locale::forLanguageTag)
+                .toList();
+        return new UserNotifications(locales,
+                Locale.forLanguageTag(environment.getProperty("app.email.templates.default-locale", "en")));
+    }
+}
@@ -0,0 +1,85 @@
+package com.artemyakkonen.emailnotificationmicroservice.handler;
+
+import com.artemyakkonen.core.EmailRequestedEvent;
+import com.artemyakkonen.emailnotificationmicroservice.exception.NonRetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.exception.RetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailMessage;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailSender;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Sends the emails requested through POST /api/email, a poll at a time with {@link EmailSender#sendAll}.
+ * <p>
+ * The first failed request is reported by its index with BatchListenerFailedException, keeping its
+ * RetryableException or NonRetryableException as the cause so the error handler retries it or gives up.
+ * The requests after it are redelivered; those already sent are remembered by event id and skipped.
+ */
+@Slf4j
+@Component
+public class EmailRequestsHandler {
+    private static final int MAX_SENT_AHEAD = 10_000;
+
+    private final EmailSender emailSender;
+    private final UserNotifications userNotifications;
+    private final SentAhead sentAhead = new SentAhead(MAX_SENT_AHEAD);
+
+    public EmailRequestsHandler(EmailSender emailSender, UserNotifications userNotifications) {
+        this.emailSender = emailSender;
+        this.userNotifications = userNotifications;
+    }
+
+    @KafkaListener(topics = "email-requested-topic", groupId = "email-requests",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            properties = "max.poll.records=${app.kafka.email-requests.max-poll-records}")
+    public void handle(List<EmailRequestedEvent> emailRequestedEvents){
+
+        log.info("Received {} email requests", emailRequestedEvents.size());
+
+        SortedMap<Integer, Exception> failures = new TreeMap<>();
+        List<Integer> indexes = new ArrayList<>(emailRequestedEvents.size());
+        List<EmailMessage> messages = new ArrayList<>(emailRequestedEvents.size());
+        for (int i = 0; i < emailRequestedEvents.size(); i++) {
+            EmailRequestedEvent emailRequestedEvent = emailRequestedEvents.get(i);
+            if (emailRequestedEvent == null) {
+                failures.put(i, new NonRetryableException("Email request could not be deserialized"));
+                continue;
+            }
+            if (sentAhead.consume(emailRequestedEvent.getEventId())) {
+                continue;
+            }
+            indexes.add(i);
+            messages.add(userNotifications.requested(emailRequestedEvent));
+        }
+
+        if (!messages.isEmpty()) {
+            emailSender.sendAll(messages).forEach((index, e) -> failures.put(indexes.get(index), e));
+        }
+
+        if (failures.isEmpty()) {
+            log.info("Sent {} requested emails", messages.size());
+            return;
+        }
+
+        int failed = failures.firstKey();
+        for (int i = failed + 1; i < emailRequestedEvents.size(); i++) {
+            if (!failures.containsKey(i)) {
+                sentAhead.add(emailRequestedEvents.get(i).getEventId());
+            }
+        }
+
+        Exception e = failures.get(failed);
+        log.error("Error while sending email occured: {}, {} of {} emails failed",
+                e.getMessage(), failures.size(), emailRequestedEvents.size());
+        throw new BatchListenerFailedException("Error while sending email",
+                e instanceof RetryableException || e instanceof NonRetryableException ? e : new NonRetryableException(e),
+                failed);
+    }
+}
@@ -0,0 +1,37 @@
+package com.artemyakkonen.emailnotificationmicroservice.handler;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keys of the records that were sent after a failed record of the same batch. The container redelivers
+ * everything after the failed record, so these are skipped once instead of being sent twice. Only the
+ * latest {@code capacity} keys are kept; records without a key are always sent.
+ */
+class SentAhead {
+    private final Set<String> keys;
+
+    SentAhead(int capacity) {
+        this.keys = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        }));
+    }
+
+    void add(String key) {
+        if (key != null) {
+            keys.add(key);
+        }
+    }
+
+    /**
+     * @return whether the record was already sent; its key is forgotten either way
+     */
+    boolean consume(String key) {
+        return key != null && keys.remove(key);
+    }
+}
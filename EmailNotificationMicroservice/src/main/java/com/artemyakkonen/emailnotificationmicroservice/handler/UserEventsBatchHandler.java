@@ -0,0 +1,104 @@
+package com.artemyakkonen.emailnotificationmicroservice.handler;
+
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.core.UserDeletedEvent;
+import com.artemyakkonen.emailnotificationmicroservice.exception.NonRetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.exception.RetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailMessage;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailSender;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Batch mode for user events, enabled with app.kafka.listener.mode=batch: the records of a poll are
+ * grouped by event type and every group goes to {@link EmailSender#sendAll} at once.
+ * <p>
+ * A failed record is reported with BatchListenerFailedException, so the records before it are committed
+ * and only the failed one is retried or sent to the DLT. The records after it are redelivered; those
+ * already sent are remembered and skipped on redelivery instead of being sent twice.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.kafka.listener", name = "mode", havingValue = "batch")
+public class UserEventsBatchHandler {
+    private static final int MAX_SENT_AHEAD = 10_000;
+
+    private final EmailSender emailSender;
+    private final UserNotifications userNotifications;
+    private final SentAhead sentAhead = new SentAhead(MAX_SENT_AHEAD);
+
+    public UserEventsBatchHandler(EmailSender emailSender, UserNotifications userNotifications) {
+        this.emailSender = emailSender;
+        this.userNotifications = userNotifications;
+    }
+
+    @KafkaListener(topics = {"user-created-events-topic", "user-deleted-events-topic"}, groupId = "user-events",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            concurrency = "${app.kafka.user-events.concurrency}",
+            properties = "max.poll.records=${app.kafka.user-events.max-poll-records}")
+    public void handle(List<ConsumerRecord<String, Object>> records){
+
+        log.info("Received {} user events", records.size());
+
+        SortedMap<Integer, Exception> failures = new TreeMap<>();
+        Map<Class<?>, List<Integer>> groups = new LinkedHashMap<>();
+        Map<Class<?>, List<EmailMessage>> messages = new LinkedHashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, Object> record = records.get(i);
+            if (sentAhead.consume(key(record))) {
+                continue;
+            }
+
+            EmailMessage message = switch (record.value()) {
+                case UserCreatedEvent userCreatedEvent -> userNotifications.created(userCreatedEvent);
+                case UserDeletedEvent userDeletedEvent -> userNotifications.deleted(userDeletedEvent);
+                case null, default -> null;
+            };
+            if (message == null) {
+                failures.put(i, new NonRetryableException("User event could not be deserialized or has unknown type"));
+                continue;
+            }
+            groups.computeIfAbsent(record.value().getClass(), type -> new ArrayList<>()).add(i);
+            messages.computeIfAbsent(record.value().getClass(), type -> new ArrayList<>()).add(message);
+        }
+
+        groups.forEach((type, indexes) -> {
+            log.info("Sending {} email notifications for {}", indexes.size(), type.getSimpleName());
+            emailSender.sendAll(messages.get(type))
+                    .forEach((index, e) -> failures.put(indexes.get(index), e));
+        });
+
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        int failed = failures.firstKey();
+        for (int i = failed + 1; i < records.size(); i++) {
+            if (!failures.containsKey(i)) {
+                sentAhead.add(key(records.get(i)));
+            }
+        }
+
+        Exception e = failures.get(failed);
+        log.error("Error while sending email notification occured: {}, {} of {} notifications failed",
+                e.getMessage(), failures.size(), records.size());
+        throw new BatchListenerFailedException("Error while sending email notification",
+                e instanceof RetryableException || e instanceof NonRetryableException ? e : new NonRetryableException(e),
+                records.get(failed));
+    }
+
+    private static String key(ConsumerRecord<?, ?> record){
+        return record.topic() + "-" + record.partition() + "@" + record.offset();
+    }
+}
@@ -0,0 +1,36 @@
+package com.artemyakkonen.emailnotificationmicroservice.handler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * End of the user events retry pipeline: records that failed with a non-retryable exception or on
+ * every retry topic arrive here, the record itself stays in the -dlt topic for inspection or replay.
+ */
+@Slf4j
+@AllArgsConstructor
+@Component
+public class UserEventsDltHandler {
+    private final MeterRegistry meterRegistry;
+
+    public void handle(@Payload(required = false) Object event,
+                       @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                       @Header(name = KafkaHeaders.ORIGINAL_TOPIC, required = false) String originalTopic,
+                       @Header(name = KafkaHeaders.EXCEPTION_CAUSE_FQCN, required = false) String exception,
+                       @Header(name = KafkaHeaders.EXCEPTION_MESSAGE, required = false) String message){
+
+        log.error("Email notification for {} moved to {} after failure: {}", event, topic, message);
+
+        Counter.builder("kafka.consumer.dlt.published")
+                .tag("topic", topic.replaceFirst("-dlt$", ""))
+                .tag("exception", exception != null ? exception.substring(exception.lastIndexOf('.') + 1) : "unknown")
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -3,15 +3,28 @@ package com.artemyakkonen.emailnotificationmicroservice.handler;
 import com.artemyakkonen.core.UserCreatedEvent;
 import com.artemyakkonen.core.UserDeletedEvent;
 import com.artemyakkonen.emailnotificationmicroservice.exception.NonRetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.exception.RetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailSender;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaHandler;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+/**
+ * Record mode: one listener call per user event. Failed events go through the retry topics of
+ * userEventsRetryTopics to the DLT. Replaced by {@link UserEventsBatchHandler} with
+ * app.kafka.listener.mode=batch.
+ */
 @Slf4j
+@AllArgsConstructor
 @Component
+@ConditionalOnProperty(prefix = "app.kafka.listener", name = "mode", havingValue = "record", matchIfMissing = true)
 @KafkaListener(topics = {"user-created-events-topic", "user-deleted-events-topic"}, groupId = "user-events")
 public class UserEventsHandler {
+    private final EmailSender emailSender;
+    private final UserNotifications userNotifications;
 
     @KafkaHandler
     public void handle(UserCreatedEvent userCreatedEvent){
@@ -24,11 +37,16 @@ public class UserEventsHandler {
                     userCreatedEvent.getName(),
                     userCreatedEvent.getEmail());
 
+            emailSender.send(userNotifications.created(userCreatedEvent));
 
             log.info("Email notification of user {} creation to {} successfully sent",
                     userCreatedEvent.getName(),
                     userCreatedEvent.getEmail());
 
+        }catch (RetryableException e){
+            log.warn("Email notification of user {} creation failed, will be retried: {}",
+                    userCreatedEvent.getName(), e.getMessage());
+            throw e;
         }catch (Exception e){
             log.error("Error while sending email notification occured: {}", e.getMessage());
             throw new NonRetryableException(e);
@@ -46,11 +64,16 @@ public class UserEventsHandler {
                     userDeletedEvent.getEmail(),
                     userDeletedEvent.getId());
 
+            emailSender.send(userNotifications.deleted(userDeletedEvent));
 
             log.info("Email notification to {} of deleting user with id={} successfully sent",
                     userDeletedEvent.getEmail(),
                     userDeletedEvent.getId());
 
+        }catch (RetryableException e){
+            log.warn("Email notification of deleting user with id={} failed, will be retried: {}",
+                    userDeletedEvent.getId(), e.getMessage());
+            throw e;
         }catch (Exception e){
             log.error("Error while sending email notification occured: {}", e.getMessage());
             throw new NonRetryableException(e);
@@ -0,0 +1,48 @@
+package com.artemyakkonen.emailnotificationmicroservice.handler;
+
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.core.UserDeletedEvent;
+import com.artemyakkonen.emailnotificationmicroservice.exception.NonRetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.exception.RetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailMessage;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailSender;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Parallel mode for user events, enabled with app.kafka.listener.mode=parallel: called by the
+ * userEventsParallelConsumer on a virtual thread per record, in order per user id.
+ */
+@Slf4j
+@AllArgsConstructor
+@Component
+@ConditionalOnProperty(prefix = "app.kafka.listener", name = "mode", havingValue = "parallel")
+public class UserEventsParallelHandler {
+    private final EmailSender emailSender;
+    private final UserNotifications userNotifications;
+
+    public void handle(ConsumerRecord<String, Object> record){
+
+        EmailMessage message = switch (record.value()) {
+            case UserCreatedEvent userCreatedEvent -> userNotifications.created(userCreatedEvent);
+            case UserDeletedEvent userDeletedEvent -> userNotifications.deleted(userDeletedEvent);
+            case null, default -> throw new NonRetryableException("User event could not be deserialized or has unknown type");
+        };
+
+        try {
+
+            log.debug("Sending email notification {} for user {}", record.value().getClass().getSimpleName(), record.key());
+
+            emailSender.send(message);
+
+        }catch (RetryableException e){
+            throw e;
+        }catch (Exception e){
+            log.error("Error while sending email notification occured: {}", e.getMessage());
+            throw new NonRetryableException(e);
+        }
+    }
+}
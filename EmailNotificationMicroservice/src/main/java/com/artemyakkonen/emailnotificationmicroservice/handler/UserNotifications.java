@@ -0,0 +1,87 @@
+package com.artemyakkonen.emailnotificationmicroservice.handler;
+
+import com.artemyakkonen.core.EmailRequestedEvent;
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.core.UserDeletedEvent;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailMessage;
+import com.artemyakkonen.emailnotificationmicroservice.template.NotificationTemplate;
+import com.artemyakkonen.emailnotificationmicroservice.template.StringBuilderPool;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Emails for user events from templates/notifications*.properties, compiled for the given locales
+ * when the service starts. Variables: ${id}, ${name}, ${email}, ${age} for a created user,
+ * ${id}, ${email} for a deleted one, ${email}, ${message} for a requested email.
+ */
+public class UserNotifications {
+    private static final String TEMPLATES = "templates/notifications";
+
+    private final Locale defaultLocale;
+    private final NotificationTemplate<UserCreatedEvent> created;
+    private final NotificationTemplate<UserDeletedEvent> deleted;
+    private final NotificationTemplate<EmailRequestedEvent> requested;
+
+    public UserNotifications(Collection<Locale> locales, Locale defaultLocale) {
+        this.defaultLocale = defaultLocale;
+        StringBuilderPool builders = new StringBuilderPool(256, 16 * 1024);
+        this.created = NotificationTemplate.<UserCreatedEvent>builder()
+                .baseName(TEMPLATES)
+                .name("user-created")
+                .locales(locales)
+                .defaultLocale(defaultLocale)
+                .variables(Map.<String, Function<UserCreatedEvent, ?>>of(
+                        "id", UserCreatedEvent::getId,
+                        "name", UserCreatedEvent::getName,
+                        "email", UserCreatedEvent::getEmail,
+                        "age", UserCreatedEvent::getAge))
+                .recipient(UserCreatedEvent::getEmail)
+                .builders(builders)
+                .build();
+        this.deleted = NotificationTemplate.<UserDeletedEvent>builder()
+                .baseName(TEMPLATES)
+                .name("user-deleted")
+                .locales(locales)
+                .defaultLocale(defaultLocale)
+                .variables(Map.<String, Function<UserDeletedEvent, ?>>of(
+                        "id", UserDeletedEvent::getId,
+                        "email", UserDeletedEvent::getEmail))
+                .recipient(UserDeletedEvent::getEmail)
+                .builders(builders)
+                .build();
+        this.requested = NotificationTemplate.<EmailRequestedEvent>builder()
+                .baseName(TEMPLATES)
+                .name("email-requested")
+                .locales(locales)
+                .defaultLocale(defaultLocale)
+                .variables(Map.<String, Function<EmailRequestedEvent, ?>>of(
+                        "email", EmailRequestedEvent::getEmail,
+                        "message", EmailRequestedEvent::getMessage))
+                .recipient(EmailRequestedEvent::getEmail)
+                .builders(builders)
+                .build();
+    }
+
+    public EmailMessage created(UserCreatedEvent userCreatedEvent){
+        return created(userCreatedEvent, defaultLocale);
+    }
+
+    public EmailMessage created(UserCreatedEvent userCreatedEvent, Locale locale){
+        return created.render(userCreatedEvent, locale);
+    }
+
+    public EmailMessage deleted(UserDeletedEvent userDeletedEvent){
+        return deleted(userDeletedEvent, defaultLocale);
+    }
+
+    public EmailMessage deleted(UserDeletedEvent userDeletedEvent, Locale locale){
+        return deleted.render(userDeletedEvent, locale);
+    }
+
+    public EmailMessage requested(EmailRequestedEvent emailRequestedEvent){
+        return requested.render(emailRequestedEvent, defaultLocale);
+    }
+}
@@ -0,0 +1,51 @@
+package com.artemyakkonen.emailnotificationmicroservice.parallel;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs tasks with the same key one after another in submission order, tasks with different keys
+ * in parallel on the underlying executor. Only keys with pending tasks are kept.
+ */
+public class KeyOrderedExecutor implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Map<Object, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    public KeyOrderedExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the task once every task submitted before with the same key has completed, whether it
+     * failed or not. Tasks without a key are not ordered.
+     */
+    public CompletableFuture<Void> submit(Object key, Runnable task) {
+        if (key == null) {
+            return CompletableFuture.runAsync(task, executor);
+        }
+        CompletableFuture<Void> future = tails.compute(key, (k, tail) -> tail == null
+                ? CompletableFuture.runAsync(task, executor)
+                : tail.handle((result, e) -> null).thenRunAsync(task, executor));
+        future.whenComplete((result, e) -> tails.remove(key, future));
+        return future;
+    }
+
+    public int pendingKeys() {
+        return tails.size();
+    }
+
+    /**
+     * Waits for the submitted tasks, then shuts the executor down.
+     */
+    @Override
+    public void close() {
+        while (!tails.isEmpty()) {
+            CompletableFuture.allOf(tails.values().toArray(CompletableFuture[]::new))
+                    .handle((result, e) -> null)
+                    .join();
+        }
+        executor.close();
+    }
+}
@@ -0,0 +1,409 @@
+package com.artemyakkonen.emailnotificationmicroservice.parallel;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.kafka.listener.RetryListener;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Consumes the topics with one poll thread and processes the records on virtual threads, in order
+ * per record key only, so the parallelism is bounded by {@code maxInFlight} instead of the partition
+ * count. Per partition only the contiguous prefix of processed offsets is committed; after a crash
+ * the records behind the first unprocessed one are delivered again.
+ * <p>
+ * A failed record is retried with {@code backOff} while {@code retryable} accepts the exception and
+ * then handed to {@code recoverer}; the other records keep flowing meanwhile. When more than
+ * {@code maxInFlight} records are being processed, the assigned partitions are paused. If the recoverer
+ * fails {@value #MAX_RECOVERY_ATTEMPTS} times, the record is left uncommitted and its partition is failed:
+ * the consumer is restarted as below and the record is delivered again.
+ * <p>
+ * When the consumer itself fails (poll, subscribe, an unrecoverable client error), the records in flight
+ * are finished and committed (retries and recoveries still waiting are abandoned), the failure is logged and counted in kafka.consumer.parallel.restarts, and
+ * a new consumer is created after {@code restartInterval}.
+ */
+@Slf4j
+public class KeyOrderedParallelConsumer<K, V> implements SmartLifecycle, MeterBinder {
+    private static final Duration REVOKE_TIMEOUT = Duration.ofSeconds(5);
+    private static final long RECOVERY_RETRY_INTERVAL_MS = 1000;
+    static final int MAX_RECOVERY_ATTEMPTS = 3;
+    private static final Duration DEFAULT_RESTART_INTERVAL = Duration.ofSeconds(5);
+
+    private final ConsumerFactory<K, V> consumerFactory;
+    private final String groupId;
+    private final Collection<String> topics;
+    private final java.util.function.Consumer<ConsumerRecord<K, V>> processor;
+    private final ConsumerRecordRecoverer recoverer;
+    private final BackOff backOff;
+    private final Predicate<Exception> retryable;
+    private final RetryListener retryListener;
+    private final int maxInFlight;
+    private final Duration pollTimeout;
+    private final Duration restartInterval;
+    private final Properties consumerProperties;
+
+    private final Map<TopicPartition, OffsetTracker> offsets = new ConcurrentHashMap<>();
+    private final Set<TopicPartition> failedPartitions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger restarts = new AtomicInteger();
+    private volatile Set<TopicPartition> assignment = Set.of();
+    private volatile RecordInterceptor<K, V> recordInterceptor;
+    private volatile boolean running;
+    private volatile boolean draining;
+    private volatile Consumer<K, V> consumer;
+    private KeyOrderedExecutor executor;
+    private Thread pollThread;
+
+    @Builder
+    private KeyOrderedParallelConsumer(ConsumerFactory<K, V> consumerFactory, String groupId, Collection<String> topics,
+                                       java.util.function.Consumer<ConsumerRecord<K, V>> processor,
+                                       ConsumerRecordRecoverer recoverer, BackOff backOff,
+                                       Predicate<Exception> retryable, RetryListener retryListener,
+                                       int maxInFlight, Duration pollTimeout, Duration restartInterval,
+                                       Properties consumerProperties) {
+        this.consumerFactory = consumerFactory;
+        this.groupId = groupId;
+        this.topics = topics;
+        this.processor = processor;
+        this.recoverer = recoverer;
+        this.backOff = backOff;
+        this.retryable = retryable;
+        this.retryListener = retryListener;
+        this.maxInFlight = maxInFlight;
+        this.pollTimeout = pollTimeout;
+        this.restartInterval = restartInterval != null ? restartInterval : DEFAULT_RESTART_INTERVAL;
+        this.consumerProperties = new Properties();
+        if (consumerProperties != null) {
+            this.consumerProperties.putAll(consumerProperties);
+        }
+        this.consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+    }
+
+    /**
+     * Called like in a listener container, but on the worker threads and without a consumer;
+     * only success and failure are invoked.
+     */
+    public void setRecordInterceptor(RecordInterceptor<K, V> recordInterceptor) {
+        this.recordInterceptor = recordInterceptor;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public Set<TopicPartition> getAssignment() {
+        return assignment;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("kafka.consumer.parallel.in.flight", inFlight, AtomicInteger::get)
+                .description("Records handed out for processing and not completed yet")
+                .tag("group", groupId)
+                .register(registry);
+        FunctionCounter.builder("kafka.consumer.parallel.restarts", restarts, AtomicInteger::get)
+                .description("Consumers recreated after a fatal failure")
+                .tag("group", groupId)
+                .register(registry);
+    }
+
+    public int getRestarts() {
+        return restarts.get();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        pollThread = Thread.ofPlatform().name(groupId + "-parallel-poll").start(this::pollLoop);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Consumer<K, V> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        try {
+            pollThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                consume();
+            } catch (Exception e) {
+                if (!running) {
+                    log.warn("Parallel consumer of {} failed while stopping", groupId, e);
+                    return;
+                }
+                restarts.incrementAndGet();
+                log.error("Parallel consumer of {} failed, restarting in {} ms", groupId, restartInterval.toMillis(), e);
+                awaitRestart();
+            }
+        }
+    }
+
+    private void consume() {
+        Consumer<K, V> consumer = consumerFactory.createConsumer(groupId, null, null, consumerProperties);
+        this.consumer = consumer;
+        executor = new KeyOrderedExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        failedPartitions.clear();
+        draining = false;
+        try {
+            consumer.subscribe(topics, new RebalanceListener(consumer));
+            while (running) {
+                try {
+                    consumer.poll(pollTimeout).forEach(this::dispatch);
+                    commitAsync(consumer);
+                    applyBackPressure(consumer);
+                } catch (WakeupException e) {
+                    log.debug("Poll of {} woken up", groupId);
+                }
+                if (!failedPartitions.isEmpty()) {
+                    throw new IllegalStateException("Recovery failed for " + failedPartitions);
+                }
+            }
+        } finally {
+            draining = true;
+            executor.close();
+            commitSync(consumer, offsets.keySet());
+            offsets.clear();
+            assignment = Set.of();
+            this.consumer = null;
+            consumer.close();
+        }
+    }
+
+    private void awaitRestart() {
+        long deadline = System.nanoTime() + restartInterval.toNanos();
+        while (running && System.nanoTime() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(Math.min(100, restartInterval.toMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    private void dispatch(ConsumerRecord<K, V> record) {
+        var tracker = offsets.computeIfAbsent(new TopicPartition(record.topic(), record.partition()),
+                partition -> new OffsetTracker());
+        tracker.dispatched(record.offset());
+        inFlight.incrementAndGet();
+        executor.submit(record.key(), () -> process(record))
+                .whenComplete((result, e) -> {
+                    inFlight.decrementAndGet();
+                    if (e == null) {
+                        tracker.completed(record.offset());
+                    }
+                });
+    }
+
+    private void process(ConsumerRecord<K, V> record) {
+        BackOffExecution backOffExecution = backOff.start();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                processor.accept(record);
+                intercept(interceptor -> interceptor.success(record, null));
+                return;
+            } catch (Exception e) {
+                retryListener.failedDelivery(record, e, attempt);
+                long interval = retryable.test(e) ? backOffExecution.nextBackOff() : BackOffExecution.STOP;
+                if (interval == BackOffExecution.STOP) {
+                    intercept(interceptor -> interceptor.failure(record, e, null));
+                    recover(record, e);
+                    return;
+                }
+                log.warn("Processing of {}-{}@{} failed, attempt {}: {}",
+                        record.topic(), record.partition(), record.offset(), attempt, e.getMessage());
+                sleep(interval);
+            }
+        }
+    }
+
+    /**
+     * Tries the recoverer up to {@value #MAX_RECOVERY_ATTEMPTS} times, then fails the partition. Either way,
+     * and when the consumer stops or restarts in between, the record is left uncommitted and delivered again.
+     */
+    private void recover(ConsumerRecord<K, V> record, Exception exception) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                recoverer.accept(record, exception);
+                retryListener.recovered(record, exception);
+                return;
+            } catch (Exception failure) {
+                retryListener.recoveryFailed(record, exception, failure);
+                log.error("Recovery of {}-{}@{} failed, attempt {}",
+                        record.topic(), record.partition(), record.offset(), attempt, failure);
+                if (attempt == MAX_RECOVERY_ATTEMPTS) {
+                    failedPartitions.add(new TopicPartition(record.topic(), record.partition()));
+                    throw new IllegalStateException("Recovery of " + record.topic() + "-" + record.partition()
+                            + "@" + record.offset() + " failed", failure);
+                }
+                sleep(RECOVERY_RETRY_INTERVAL_MS);
+            }
+        }
+    }
+
+    /**
+     * Waits in short steps, so a stop or restart does not wait for a full retry interval.
+     */
+    private void sleep(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        do {
+            if (!running || draining) {
+                throw new IllegalStateException("Consumer " + groupId + " is stopping");
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(Math.min(100, millis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to retry", e);
+            }
+        } while (System.nanoTime() < deadline);
+    }
+
+    private void intercept(java.util.function.Consumer<RecordInterceptor<K, V>> action) {
+        RecordInterceptor<K, V> interceptor = recordInterceptor;
+        if (interceptor != null) {
+            action.accept(interceptor);
+        }
+    }
+
+    private void applyBackPressure(Consumer<K, V> consumer) {
+        if (inFlight.get() >= maxInFlight) {
+            consumer.pause(consumer.assignment());
+        } else if (!consumer.paused().isEmpty()) {
+            consumer.resume(consumer.paused());
+        }
+    }
+
+    private void commitAsync(Consumer<K, V> consumer) {
+        var commits = commitOffsets(offsets.keySet());
+        if (commits.isEmpty()) {
+            return;
+        }
+        consumer.commitAsync(commits, (committed, e) -> {
+            if (e != null) {
+                log.warn("Commit of {} failed: {}", groupId, e.getMessage());
+                return;
+            }
+            committed.forEach((partition, offset) -> {
+                var tracker = offsets.get(partition);
+                if (tracker != null) {
+                    tracker.committed(offset.offset());
+                }
+            });
+        });
+    }
+
+    private void commitSync(Consumer<K, V> consumer, Collection<TopicPartition> partitions) {
+        var commits = commitOffsets(partitions);
+        if (commits.isEmpty()) {
+            return;
+        }
+        try {
+            consumer.commitSync(commits);
+        } catch (Exception e) {
+            log.warn("Commit of {} failed: {}", groupId, e.getMessage());
+        }
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> commitOffsets(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            var tracker = offsets.get(partition);
+            if (tracker != null) {
+                tracker.commitOffset().ifPresent(offset -> commits.put(partition, new OffsetAndMetadata(offset)));
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * Runs on the poll thread. Revoked partitions get a short time to finish the records in flight,
+     * what is still processing afterwards is delivered again to the new owner.
+     */
+    private class RebalanceListener implements ConsumerRebalanceListener {
+        private final Consumer<K, V> consumer;
+
+        RebalanceListener(Consumer<K, V> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            long deadline = System.nanoTime() + REVOKE_TIMEOUT.toNanos();
+            while (partitions.stream().map(offsets::get).anyMatch(tracker -> tracker != null && tracker.inFlight() > 0)
+                    && System.nanoTime() < deadline) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            commitSync(consumer, partitions);
+            partitions.forEach(offsets::remove);
+            assignment = consumer.assignment().stream()
+                    .filter(partition -> !partitions.contains(partition))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            assignment = Set.copyOf(consumer.assignment());
+            log.info("Parallel consumer of {} assigned {}", groupId, partitions);
+        }
+
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> partitions) {
+            partitions.forEach(offsets::remove);
+            assignment = Set.copyOf(consumer.assignment());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.artemyakkonen.emailnotificationmicroservice.parallel;
+
+import java.util.NavigableSet;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Offsets of one partition handed out for processing. Records are dispatched in offset order by the
+ * poll thread and completed in any order by the workers; the offset to commit is the first one still
+ * in flight, so only the contiguous prefix of processed records is ever committed.
+ */
+public class OffsetTracker {
+    private final NavigableSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private long next = -1;
+    private long committed = -1;
+
+    /**
+     * Called by the poll thread only.
+     */
+    public void dispatched(long offset) {
+        inFlight.add(offset);
+        next = offset + 1;
+    }
+
+    public void completed(long offset) {
+        inFlight.remove(offset);
+    }
+
+    /**
+     * Called by the poll thread only.
+     *
+     * @return the next offset to read after the processed prefix, empty if it has not moved since the last commit
+     */
+    public OptionalLong commitOffset() {
+        Long first = inFlight.ceiling(Long.MIN_VALUE);
+        long offset = first != null ? first : next;
+        return offset > committed ? OptionalLong.of(offset) : OptionalLong.empty();
+    }
+
+    public void committed(long offset) {
+        committed = Math.max(committed, offset);
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
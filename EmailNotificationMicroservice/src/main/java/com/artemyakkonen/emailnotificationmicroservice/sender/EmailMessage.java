@@ -0,0 +1,12 @@
+package com.artemyakkonen.emailnotificationmicroservice.sender;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class EmailMessage {
+    String to;
+    String subject;
+    String body;
+}
@@ -0,0 +1,28 @@
+package com.artemyakkonen.emailnotificationmicroservice.sender;
+
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public interface EmailSender {
+
+    void send(EmailMessage message);
+
+    /**
+     * Sends the messages in one go where the transport allows it. A failed message does not stop
+     * the others from being sent.
+     *
+     * @return exceptions by index in {@code messages}, empty when everything was sent
+     */
+    default SortedMap<Integer, Exception> sendAll(List<EmailMessage> messages) {
+        SortedMap<Integer, Exception> failures = new TreeMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                send(messages.get(i));
+            } catch (Exception e) {
+                failures.put(i, e);
+            }
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,31 @@
+package com.artemyakkonen.emailnotificationmicroservice.sender;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * Writes the messages to the log instead of sending them. Replaced by {@link SmtpEmailSender}
+ * with app.email.sender=smtp.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.email", name = "sender", havingValue = "logging", matchIfMissing = true)
+public class LoggingEmailSender implements EmailSender {
+
+    @Override
+    public void send(EmailMessage message) {
+        log.debug("Email \"{}\" to {} successfully sent", message.getSubject(), message.getTo());
+    }
+
+    @Override
+    public SortedMap<Integer, Exception> sendAll(List<EmailMessage> messages) {
+        messages.forEach(message -> log.debug("Email \"{}\" to {} successfully sent", message.getSubject(), message.getTo()));
+        log.info("{} emails successfully sent", messages.size());
+        return Collections.emptySortedMap();
+    }
+}
@@ -0,0 +1,196 @@
+package com.artemyakkonen.emailnotificationmicroservice.sender;
+
+import com.artemyakkonen.emailnotificationmicroservice.exception.RetryableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps up to {@code size} authenticated SMTP sessions open and hands them out one caller at a time,
+ * so the TCP, TLS and AUTH handshakes are paid once per connection instead of once per message.
+ * A connection is closed after {@code maxMessagesPerConnection} messages, as many servers limit
+ * the messages per session, and checked with RSET before reuse after {@code validateAfterIdle}.
+ */
+@Slf4j
+public class SmtpConnectionPool implements AutoCloseable, MeterBinder {
+    private final Session session;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final int size;
+    private final int maxMessagesPerConnection;
+    private final Duration borrowTimeout;
+    private final Duration validateAfterIdle;
+
+    private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+    private final Semaphore permits;
+    private final AtomicInteger open = new AtomicInteger();
+    private volatile boolean closed;
+
+    @Builder
+    private SmtpConnectionPool(String host, int port, String username, String password, boolean startTls,
+                               int size, int maxMessagesPerConnection, Duration borrowTimeout,
+                               Duration validateAfterIdle, Duration timeout) {
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.size = size;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.borrowTimeout = borrowTimeout;
+        this.validateAfterIdle = validateAfterIdle;
+        this.permits = new Semaphore(size, true);
+
+        Properties properties = new Properties();
+        properties.put("mail.smtp.auth", String.valueOf(username != null && !username.isEmpty()));
+        properties.put("mail.smtp.starttls.enable", String.valueOf(startTls));
+        properties.put("mail.smtp.starttls.required", String.valueOf(startTls));
+        // isConnected() sends RSET instead of NOOP, which every server supports
+        properties.put("mail.smtp.userset", "true");
+        properties.put("mail.smtp.connectiontimeout", String.valueOf(timeout.toMillis()));
+        properties.put("mail.smtp.timeout", String.valueOf(timeout.toMillis()));
+        properties.put("mail.smtp.writetimeout", String.valueOf(timeout.toMillis()));
+        this.session = Session.getInstance(properties);
+    }
+
+    Session getSession() {
+        return session;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Waits up to {@code borrowTimeout} for a free connection, opening a new one if none is idle.
+     * The connection must be given back with {@link #release}.
+     *
+     * @throws RetryableException when no connection is free in time or the server cannot be reached
+     */
+    Connection borrow() {
+        if (closed) {
+            throw new IllegalStateException("SMTP connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RetryableException("No SMTP connection to " + host + " free within " + borrowTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RetryableException(e);
+        }
+        try {
+            Connection connection;
+            while ((connection = idle.poll()) != null) {
+                if (connection.isUsable()) {
+                    return connection;
+                }
+                discard(connection);
+            }
+            return connect();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the connection to the pool, or closes it when {@code broken} or worn out.
+     */
+    void release(Connection connection, boolean broken) {
+        try {
+            if (broken || closed || connection.sent >= maxMessagesPerConnection) {
+                discard(connection);
+            } else {
+                connection.lastUsedNanos = System.nanoTime();
+                idle.offer(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("email.smtp.connections.open", open, AtomicInteger::get)
+                .description("SMTP sessions kept open by the pool")
+                .tag("host", host)
+                .register(registry);
+        Gauge.builder("email.smtp.connections.idle", idle, BlockingQueue::size)
+                .description("Open SMTP sessions not used by a sender right now")
+                .tag("host", host)
+                .register(registry);
+    }
+
+    private Connection connect() {
+        try {
+            Transport transport = session.getTransport("smtp");
+            transport.connect(host, port, username, password);
+            open.incrementAndGet();
+            log.debug("Opened SMTP connection to {}:{}", host, port);
+            return new Connection(transport);
+        } catch (MessagingException e) {
+            throw new RetryableException(e);
+        }
+    }
+
+    private void discard(Connection connection) {
+        open.decrementAndGet();
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Closing SMTP connection to {} failed: {}", host, e.getMessage());
+        }
+    }
+
+    /**
+     * One open SMTP session. Messages are sent one after another as separate mail transactions, and every
+     * command waits for its reply: the PIPELINING extension (RFC 2920) is not used.
+     */
+    final class Connection {
+        private final Transport transport;
+        private int sent;
+        private long lastUsedNanos = System.nanoTime();
+
+        private Connection(Transport transport) {
+            this.transport = transport;
+        }
+
+        void send(Message message) throws MessagingException {
+            sent++;
+            transport.sendMessage(message, message.getAllRecipients());
+        }
+
+        boolean isWornOut() {
+            return sent >= maxMessagesPerConnection;
+        }
+
+        private boolean isUsable() {
+            return System.nanoTime() - lastUsedNanos < validateAfterIdle.toNanos() || transport.isConnected();
+        }
+    }
+}
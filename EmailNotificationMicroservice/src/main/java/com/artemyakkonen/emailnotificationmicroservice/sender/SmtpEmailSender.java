@@ -0,0 +1,150 @@
+package com.artemyakkonen.emailnotificationmicroservice.sender;
+
+import com.artemyakkonen.emailnotificationmicroservice.exception.NonRetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.exception.RetryableException;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Sends over the persistent connections of a {@link SmtpConnectionPool}. A batch is split into one
+ * slice per pool connection; each slice goes out on a virtual thread as consecutive mail transactions
+ * over a single session. The speed-up comes from reusing sessions and running them in parallel,
+ * not from pipelining SMTP commands.
+ * <p>
+ * Rejected recipients and malformed messages fail with {@link NonRetryableException}, connection
+ * and server errors with {@link RetryableException}.
+ */
+@Slf4j
+public class SmtpEmailSender implements EmailSender, AutoCloseable {
+    private final SmtpConnectionPool pool;
+    private final InternetAddress from;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SmtpEmailSender(SmtpConnectionPool pool, String from) {
+        this.pool = pool;
+        try {
+            this.from = new InternetAddress(from, true);
+        } catch (MessagingException e) {
+            throw new IllegalArgumentException("Invalid sender address " + from, e);
+        }
+    }
+
+    @Override
+    public void send(EmailMessage message) {
+        var failures = sendSlice(List.of(message), 0);
+        if (!failures.isEmpty()) {
+            throw (RuntimeException) failures.get(0);
+        }
+    }
+
+    @Override
+    public SortedMap<Integer, Exception> sendAll(List<EmailMessage> messages) {
+        int slices = Math.min(pool.getSize(), messages.size());
+        SortedMap<Integer, Exception> failures = new ConcurrentSkipListMap<>();
+        if (slices <= 1) {
+            failures.putAll(sendSlice(messages, 0));
+        } else {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(slices);
+            for (int i = 0; i < slices; i++) {
+                int from = messages.size() * i / slices;
+                int to = messages.size() * (i + 1) / slices;
+                futures.add(CompletableFuture.runAsync(
+                        () -> failures.putAll(sendSlice(messages.subList(from, to), from)), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+        log.info("{} emails sent, {} failed", messages.size() - failures.size(), failures.size());
+        return failures;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+        pool.close();
+    }
+
+    /**
+     * Sends the messages in order, over one connection as long as it works.
+     *
+     * @return exceptions by index in the whole batch, {@code offset} being the index of the first message
+     */
+    private SortedMap<Integer, Exception> sendSlice(List<EmailMessage> messages, int offset) {
+        SortedMap<Integer, Exception> failures = new TreeMap<>();
+        SmtpConnectionPool.Connection connection = null;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                EmailMessage message = messages.get(i);
+                if (connection != null && connection.isWornOut()) {
+                    pool.release(connection, false);
+                    connection = null;
+                }
+                if (connection == null) {
+                    try {
+                        connection = pool.borrow();
+                    } catch (RuntimeException e) {
+                        for (int j = i; j < messages.size(); j++) {
+                            failures.put(offset + j, e);
+                        }
+                        break;
+                    }
+                }
+                try {
+                    connection.send(toMimeMessage(message));
+                    log.debug("Email \"{}\" to {} successfully sent", message.getSubject(), message.getTo());
+                } catch (SendFailedException e) {
+                    failures.put(offset + i, sendFailed(e));
+                } catch (MessagingException e) {
+                    pool.release(connection, true);
+                    connection = null;
+                    failures.put(offset + i, new RetryableException(e));
+                } catch (RuntimeException e) {
+                    failures.put(offset + i, e);
+                }
+            }
+        } finally {
+            if (connection != null) {
+                pool.release(connection, false);
+            }
+        }
+        return failures;
+    }
+
+    private Message toMimeMessage(EmailMessage message) {
+        try {
+            MimeMessage mimeMessage = new MimeMessage(pool.getSession());
+            mimeMessage.setFrom(from);
+            mimeMessage.setRecipients(Message.RecipientType.TO, InternetAddress.parse(message.getTo(), true));
+            mimeMessage.setSubject(message.getSubject(), StandardCharsets.UTF_8.name());
+            mimeMessage.setText(message.getBody(), StandardCharsets.UTF_8.name());
+            mimeMessage.saveChanges();
+            return mimeMessage;
+        } catch (MessagingException e) {
+            throw new NonRetryableException(e);
+        }
+    }
+
+    /**
+     * The session survives a rejected transaction; only permanently rejected recipients are final.
+     */
+    private static RuntimeException sendFailed(SendFailedException e) {
+        var invalidAddresses = e.getInvalidAddresses();
+        if (invalidAddresses != null && invalidAddresses.length > 0) {
+            return new NonRetryableException(e);
+        }
+        return new RetryableException(e);
+    }
+}
@@ -0,0 +1,80 @@
+package com.artemyakkonen.emailnotificationmicroservice.template;
+
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailMessage;
+import lombok.Builder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Subject and body of one kind of notification, compiled for every configured locale from the
+ * {@code <name>.subject} and {@code <name>.body} keys of the UTF-8 resource bundle {@code baseName}.
+ * A requested locale is served by its exact variant, else by the variant of its language, else by
+ * the default locale; the choice is cached per requested locale.
+ */
+public final class NotificationTemplate<T> {
+    private final Map<Locale, Variant<T>> variants = new HashMap<>();
+    private final Map<Locale, Variant<T>> resolved = new ConcurrentHashMap<>();
+    private final Locale defaultLocale;
+    private final Function<? super T, String> recipient;
+    private final StringBuilderPool builders;
+
+    /**
+     * @throws java.util.MissingResourceException when the bundle or a key is missing for a locale
+     * @throws IllegalArgumentException when a template does not compile
+     */
+    @Builder
+    private NotificationTemplate(String baseName, String name, Collection<Locale> locales, Locale defaultLocale,
+                                 Map<String, ? extends Function<? super T, ?>> variables,
+                                 Function<? super T, String> recipient, StringBuilderPool builders) {
+        this.defaultLocale = defaultLocale;
+        this.recipient = recipient;
+        this.builders = builders;
+
+        Set<Locale> compiled = new LinkedHashSet<>(locales);
+        compiled.add(defaultLocale);
+        ResourceBundle.Control control = ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES);
+        for (Locale locale : compiled) {
+            ResourceBundle bundle = ResourceBundle.getBundle(baseName, locale, control);
+            variants.put(locale, new Variant<>(
+                    Template.compile(bundle.getString(name + ".subject"), variables),
+                    Template.compile(bundle.getString(name + ".body"), variables)));
+        }
+    }
+
+    public EmailMessage render(T model, Locale locale) {
+        Variant<T> variant = resolved.computeIfAbsent(locale != null ? locale : defaultLocale, this::resolve);
+        StringBuilder out = builders.acquire();
+        try {
+            variant.subject().renderTo(model, out);
+            String subject = out.toString();
+            out.setLength(0);
+            variant.body().renderTo(model, out);
+            return EmailMessage.builder()
+                    .to(recipient.apply(model))
+                    .subject(subject)
+                    .body(out.toString())
+                    .build();
+        } finally {
+            builders.release(out);
+        }
+    }
+
+    private Variant<T> resolve(Locale locale) {
+        Variant<T> variant = variants.get(locale);
+        if (variant == null) {
+            variant = variants.get(Locale.of(locale.getLanguage()));
+        }
+        return variant != null ? variant : variants.get(defaultLocale);
+    }
+
+    private record Variant<T>(Template<T> subject, Template<T> body) {
+    }
+}
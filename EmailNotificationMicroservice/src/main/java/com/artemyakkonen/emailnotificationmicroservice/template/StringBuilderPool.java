@@ -0,0 +1,33 @@
+package com.artemyakkonen.emailnotificationmicroservice.template;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Reuses render buffers across threads. Unlike a ThreadLocal it works for virtual threads, where
+ * every record would get a buffer of its own; the pool holds at most as many buffers as were in use
+ * at once. Buffers grown beyond {@code maxRetainedCapacity} are dropped instead of being kept.
+ */
+public class StringBuilderPool {
+    private final Queue<StringBuilder> free = new ConcurrentLinkedQueue<>();
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+
+    public StringBuilderPool(int initialCapacity, int maxRetainedCapacity) {
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = maxRetainedCapacity;
+    }
+
+    public StringBuilder acquire() {
+        StringBuilder builder = free.poll();
+        return builder != null ? builder : new StringBuilder(initialCapacity);
+    }
+
+    public void release(StringBuilder builder) {
+        if (builder.capacity() > maxRetainedCapacity) {
+            return;
+        }
+        builder.setLength(0);
+        free.offer(builder);
+    }
+}
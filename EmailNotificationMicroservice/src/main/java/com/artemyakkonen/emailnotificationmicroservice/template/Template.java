@@ -0,0 +1,77 @@
+package com.artemyakkonen.emailnotificationmicroservice.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Text with {@code ${variable}} placeholders, parsed once into a list of segments: literal text and
+ * the accessor of each variable, resolved by name at compile time. Rendering only appends the
+ * segments to the given builder, so an unknown variable or an unclosed placeholder fails on startup
+ * and not on the first notification.
+ */
+public final class Template<T> {
+    private final Segment<T>[] segments;
+    private final int literalLength;
+
+    private Template(Segment<T>[] segments, int literalLength) {
+        this.segments = segments;
+        this.literalLength = literalLength;
+    }
+
+    /**
+     * @param variables accessors of the model by the variable names usable in {@code source}
+     * @throws IllegalArgumentException when {@code source} has an unclosed placeholder or an unknown variable
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Template<T> compile(String source, Map<String, ? extends Function<? super T, ?>> variables) {
+        List<Segment<T>> segments = new ArrayList<>();
+        int literalLength = 0;
+        int position = 0;
+        while (position < source.length()) {
+            int start = source.indexOf("${", position);
+            if (start < 0) {
+                start = source.length();
+            }
+            if (start > position) {
+                String literal = source.substring(position, start);
+                segments.add((model, out) -> out.append(literal));
+                literalLength += literal.length();
+            }
+            if (start == source.length()) {
+                break;
+            }
+            int end = source.indexOf('}', start + 2);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at " + start + " in template \"" + source + "\"");
+            }
+            String name = source.substring(start + 2, end).trim();
+            Function<? super T, ?> accessor = variables.get(name);
+            if (accessor == null) {
+                throw new IllegalArgumentException("Unknown variable ${" + name + "} in template \"" + source
+                        + "\", known are " + variables.keySet());
+            }
+            segments.add((model, out) -> {
+                Object value = accessor.apply(model);
+                if (value != null) {
+                    out.append(value);
+                }
+            });
+            position = end + 1;
+        }
+        return new Template<>(segments.toArray(Segment[]::new), literalLength);
+    }
+
+    public void renderTo(T model, StringBuilder out) {
+        out.ensureCapacity(out.length() + literalLength + 16 * segments.length);
+        for (Segment<T> segment : segments) {
+            segment.appendTo(model, out);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Segment<T> {
+        void appendTo(T model, StringBuilder out);
+    }
+}
@@ -0,0 +1,120 @@
+package com.artemyakkonen.emailnotificationmicroservice.handler;
+
+import com.artemyakkonen.core.EmailRequestedEvent;
+import com.artemyakkonen.emailnotificationmicroservice.exception.NonRetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.exception.RetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailMessage;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailSender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailRequestsHandler Tests")
+class EmailRequestsHandlerTest {
+    @Mock
+    private EmailSender emailSender;
+
+    private EmailRequestsHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new EmailRequestsHandler(emailSender, new UserNotifications(List.of(Locale.ENGLISH), Locale.ENGLISH));
+    }
+
+    @Test
+    @DisplayName("Should send the requested emails of a poll in one call")
+    void shouldSendAll() {
+        when(emailSender.sendAll(anyList())).thenReturn(Collections.emptySortedMap());
+
+        handler.handle(List.of(request("john.doe@example.com", "Hello, John"), request("jane.smith@example.com", "Hi, Jane")));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailMessage>> messages = ArgumentCaptor.forClass(List.class);
+        verify(emailSender).sendAll(messages.capture());
+        assertThat(messages.getValue()).extracting(EmailMessage::getTo)
+                .containsExactly("john.doe@example.com", "jane.smith@example.com");
+        assertThat(messages.getValue()).extracting(EmailMessage::getBody).containsExactly("Hello, John", "Hi, Jane");
+    }
+
+    @Test
+    @DisplayName("Should report a retryable failure at its index and skip the emails already sent on redelivery")
+    void shouldReportRetryableFailure() {
+        var requests = List.of(
+                request("john.doe@example.com", "Hello"),
+                request("jane.smith@example.com", "Hello"),
+                request("bob.johnson@example.com", "Hello"));
+        var failures = new TreeMap<Integer, Exception>();
+        failures.put(1, new RetryableException("Mailbox busy"));
+        when(emailSender.sendAll(anyList())).thenReturn(failures);
+
+        var exception = catchThrowableOfType(BatchListenerFailedException.class, () -> handler.handle(requests));
+
+        assertThat(exception.getIndex()).isEqualTo(1);
+        assertThat(exception.getCause()).isInstanceOf(RetryableException.class);
+
+        when(emailSender.sendAll(anyList())).thenReturn(Collections.emptySortedMap());
+        handler.handle(requests.subList(1, 3));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailMessage>> messages = ArgumentCaptor.forClass(List.class);
+        verify(emailSender, times(2)).sendAll(messages.capture());
+        assertThat(messages.getValue()).extracting(EmailMessage::getTo).containsExactly("jane.smith@example.com");
+    }
+
+    @Test
+    @DisplayName("Should report a non-retryable failure as such and wrap unexpected exceptions as non-retryable")
+    void shouldReportNonRetryableFailure() {
+        var failures = new TreeMap<Integer, Exception>();
+        failures.put(0, new NonRetryableException("Invalid address"));
+        when(emailSender.sendAll(anyList())).thenReturn(failures);
+
+        var rejected = catchThrowableOfType(BatchListenerFailedException.class,
+                () -> handler.handle(List.of(request("not an address", "Hello"))));
+
+        assertThat(rejected.getIndex()).isZero();
+        assertThat(rejected.getCause()).isInstanceOf(NonRetryableException.class);
+
+        failures.put(0, new IllegalStateException("Unexpected"));
+        var unexpected = catchThrowableOfType(BatchListenerFailedException.class,
+                () -> handler.handle(List.of(request("john.doe@example.com", "Hello"))));
+
+        assertThat(unexpected.getCause()).isInstanceOf(NonRetryableException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Should send the other emails and report a request that could not be deserialized")
+    void shouldReportUndeserializableRequest() {
+        when(emailSender.sendAll(anyList())).thenReturn(Collections.emptySortedMap());
+
+        var exception = catchThrowableOfType(BatchListenerFailedException.class,
+                () -> handler.handle(Arrays.asList(request("john.doe@example.com", "Hello"), null)));
+
+        assertThat(exception.getIndex()).isEqualTo(1);
+        assertThat(exception.getCause()).isInstanceOf(NonRetryableException.class);
+        verify(emailSender).sendAll(anyList());
+    }
+
+    private static EmailRequestedEvent request(String email, String message) {
+        return EmailRequestedEvent.builder().email(email).message(message).build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.artemyakkonen.emailnotificationmicroservice.handler;
+
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.core.UserDeletedEvent;
+import com.artemyakkonen.emailnotificationmicroservice.exception.NonRetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailMessage;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailSender;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserEventsBatchHandler Tests")
+class UserEventsBatchHandlerTest {
+    @Mock
+    private EmailSender emailSender;
+
+    private UserEventsBatchHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new UserEventsBatchHandler(emailSender, new UserNotifications(List.of(Locale.ENGLISH), Locale.ENGLISH));
+    }
+
+    @Test
+    @DisplayName("Should send the notifications of a poll in one call per event type")
+    void shouldGroupByEventType() {
+        when(emailSender.sendAll(anyList())).thenReturn(Collections.emptySortedMap());
+
+        handler.handle(List.of(
+                record(0, created("john.doe@example.com")),
+                record(1, deleted("jane.smith@example.com")),
+                record(2, created("bob.johnson@example.com"))));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailMessage>> messages = ArgumentCaptor.forClass(List.class);
+        verify(emailSender, times(2)).sendAll(messages.capture());
+        assertThat(messages.getAllValues().get(0)).extracting(EmailMessage::getTo)
+                .containsExactly("john.doe@example.com", "bob.johnson@example.com");
+        assertThat(messages.getAllValues().get(1)).extracting(EmailMessage::getTo)
+                .containsExactly("jane.smith@example.com");
+    }
+
+    @Test
+    @DisplayName("Should report the failed record and skip the records already sent on redelivery")
+    void shouldReportFailedRecord() {
+        var failedRecord = record(1, created("jane.smith@example.com"));
+        var records = List.of(
+                record(0, created("john.doe@example.com")),
+                failedRecord,
+                record(2, created("bob.johnson@example.com")));
+        var failures = new TreeMap<Integer, Exception>();
+        failures.put(1, new IllegalStateException("Mailbox unavailable"));
+        when(emailSender.sendAll(anyList())).thenReturn(failures);
+
+        var exception = catchThrowableOfType(BatchListenerFailedException.class, () -> handler.handle(records));
+
+        assertThat(exception.getRecord()).isSameAs(failedRecord);
+        assertThat(exception.getCause()).isInstanceOf(NonRetryableException.class);
+
+        when(emailSender.sendAll(anyList())).thenReturn(Collections.emptySortedMap());
+        handler.handle(records.subList(1, 3));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<EmailMessage>> messages = ArgumentCaptor.forClass(List.class);
+        verify(emailSender, times(2)).sendAll(messages.capture());
+        assertThat(messages.getValue()).extracting(EmailMessage::getTo).containsExactly("jane.smith@example.com");
+    }
+
+    @Test
+    @DisplayName("Should report a record that could not be deserialized as not retryable")
+    void shouldReportUndeserializableRecord() {
+        when(emailSender.sendAll(anyList())).thenReturn(Collections.emptySortedMap());
+        var failedRecord = record(1, null);
+
+        var exception = catchThrowableOfType(BatchListenerFailedException.class, () -> handler.handle(List.of(
+                record(0, created("john.doe@example.com")),
+                failedRecord)));
+
+        assertThat(exception.getRecord()).isSameAs(failedRecord);
+        assertThat(exception.getCause()).isInstanceOf(NonRetryableException.class);
+        verify(emailSender).sendAll(anyList());
+    }
+
+    private static ConsumerRecord<String, Object> record(long offset, Object value) {
+        return new ConsumerRecord<>("user-created-events-topic", 0, offset, String.valueOf(offset), value);
+    }
+
+    private static UserCreatedEvent created(String email) {
+        return UserCreatedEvent.builder().id(1L).name("John Doe").email(email).age(30).build();
+    }
+
+    private static UserDeletedEvent deleted(String email) {
+        return UserDeletedEvent.builder().id(2L).email(email).build();
+    }
+}
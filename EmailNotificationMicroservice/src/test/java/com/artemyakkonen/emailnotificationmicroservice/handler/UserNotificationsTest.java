@@ -0,0 +1,54 @@
+package com.artemyakkonen.emailnotificationmicroservice.handler;
+
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.core.UserDeletedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UserNotifications Tests")
+class UserNotificationsTest {
+    private static final Locale RUSSIAN = Locale.of("ru");
+
+    private final UserNotifications userNotifications = new UserNotifications(List.of(Locale.ENGLISH, RUSSIAN), Locale.ENGLISH);
+
+    @Test
+    @DisplayName("Should render the default locale")
+    void shouldRenderDefaultLocale() {
+        var created = userNotifications.created(created());
+        var deleted = userNotifications.deleted(UserDeletedEvent.builder().id(1L).email("john.doe@example.com").build());
+
+        assertThat(created.getTo()).isEqualTo("john.doe@example.com");
+        assertThat(created.getSubject()).isEqualTo("Welcome, John Doe");
+        assertThat(created.getBody()).isEqualTo("Hello, John Doe! Your account has been created.");
+        assertThat(deleted.getTo()).isEqualTo("john.doe@example.com");
+        assertThat(deleted.getSubject()).isEqualTo("Your account has been deleted");
+        assertThat(deleted.getBody()).isEqualTo("User with id=1 has been deleted.");
+    }
+
+    @Test
+    @DisplayName("Should render the variant of the locale or of its language")
+    void shouldRenderLocaleVariant() {
+        var russian = userNotifications.created(created(), RUSSIAN);
+        var russia = userNotifications.created(created(), Locale.of("ru", "RU"));
+
+        assertThat(russian.getSubject()).isEqualTo("Добро пожаловать, John Doe");
+        assertThat(russian.getBody()).isEqualTo("Здравствуйте, John Doe! Ваш аккаунт создан.");
+        assertThat(russia).isEqualTo(russian);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the default locale for locales without templates")
+    void shouldFallBackToDefaultLocale() {
+        assertThat(userNotifications.created(created(), Locale.GERMAN)).isEqualTo(userNotifications.created(created()));
+        assertThat(userNotifications.created(created(), null)).isEqualTo(userNotifications.created(created()));
+    }
+
+    private static UserCreatedEvent created() {
+        return UserCreatedEvent.builder().id(1L).name("John Doe").email("john.doe@example.com").age(30).build();
+    }
+}
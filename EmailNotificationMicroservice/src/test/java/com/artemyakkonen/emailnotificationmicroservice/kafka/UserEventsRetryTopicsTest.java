@@ -0,0 +1,103 @@
+package com.artemyakkonen.emailnotificationmicroservice.kafka;
+
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.emailnotificationmicroservice.exception.NonRetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.exception.RetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailMessage;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.consumer.properties.auto.offset.reset=earliest",
+        "app.kafka.listener.mode=record",
+        "app.kafka.user-events.retry.initial-interval-ms=500",
+        "app.kafka.user-events.retry.multiplier=2",
+        "app.kafka.user-events.retry.max-interval-ms=1000",
+        "app.kafka.user-events.retry.max-attempts=3",
+        "app.kafka.user-events.retry.partitions=1",
+        "app.kafka.user-events.retry.replicas=1"
+})
+@EmbeddedKafka(partitions = 1, topics = {"user-created-events-topic", "user-deleted-events-topic"})
+@DisplayName("User events retry topics Tests")
+class UserEventsRetryTopicsTest {
+    @MockitoBean
+    private EmailSender emailSender;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Should retry a retryable failure on retry topics while later events keep flowing")
+    void shouldRetryWithoutBlockingPartition() {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        var failures = new AtomicInteger();
+        doAnswer(invocation -> {
+            EmailMessage message = invocation.getArgument(0);
+            if (message.getTo().equals("retry@example.com") && failures.incrementAndGet() <= 2) {
+                throw new RetryableException("Mail provider unavailable");
+            }
+            sent.add(message.getTo());
+            return null;
+        }).when(emailSender).send(any());
+
+        kafkaTemplate.send("user-created-events-topic", "1", created(1L, "retry@example.com"));
+        kafkaTemplate.send("user-created-events-topic", "2", created(2L, "healthy@example.com"));
+
+        verify(emailSender, timeout(30_000).times(4)).send(any());
+        assertThat(sent).containsExactly("healthy@example.com", "retry@example.com");
+    }
+
+    @Test
+    @DisplayName("Should move a non-retryable failure to the DLT without retries")
+    void shouldSendNonRetryableFailureToDlt() throws InterruptedException {
+        doAnswer(invocation -> {
+            EmailMessage message = invocation.getArgument(0);
+            if (message.getTo().equals("missing@example.com")) {
+                throw new NonRetryableException("Mailbox does not exist");
+            }
+            return null;
+        }).when(emailSender).send(any());
+
+        kafkaTemplate.send("user-created-events-topic", "3", created(3L, "missing@example.com"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (dltPublished() < 1 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        assertThat(dltPublished()).isEqualTo(1);
+        verify(emailSender).send(any());
+    }
+
+    private double dltPublished() {
+        var counter = meterRegistry.find("kafka.consumer.dlt.published")
+                .tag("topic", "user-created-events-topic")
+                .counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static UserCreatedEvent created(Long id, String email) {
+        return UserCreatedEvent.builder().id(id).name("John Doe").email(email).age(30).build();
+    }
+}
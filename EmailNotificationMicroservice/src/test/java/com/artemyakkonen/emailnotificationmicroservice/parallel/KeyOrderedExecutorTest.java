@@ -0,0 +1,67 @@
+package com.artemyakkonen.emailnotificationmicroservice.parallel;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("KeyOrderedExecutor Tests")
+class KeyOrderedExecutorTest {
+    private final KeyOrderedExecutor executor = new KeyOrderedExecutor(Executors.newVirtualThreadPerTaskExecutor());
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    @DisplayName("Should run tasks of one key in submission order while other keys proceed")
+    void shouldOrderTasksPerKey() throws Exception {
+        var blocker = new CountDownLatch(1);
+        List<String> completed = new CopyOnWriteArrayList<>();
+
+        var first = executor.submit("1", () -> {
+            await(blocker);
+            completed.add("1-a");
+        });
+        var second = executor.submit("1", () -> completed.add("1-b"));
+        executor.submit("2", () -> completed.add("2-a")).get(5, TimeUnit.SECONDS);
+
+        assertThat(completed).containsExactly("2-a");
+        assertThat(second).isNotDone();
+
+        blocker.countDown();
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        assertThat(completed).containsExactly("2-a", "1-a", "1-b");
+    }
+
+    @Test
+    @DisplayName("Should run the next task of a key after the previous one failed")
+    void shouldContinueAfterFailure() throws Exception {
+        var failed = executor.submit("1", () -> {
+            throw new IllegalStateException("Mailbox unavailable");
+        });
+        var next = executor.submit("1", () -> { });
+
+        next.get(5, TimeUnit.SECONDS);
+
+        assertThat(failed).isCompletedExceptionally();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.artemyakkonen.emailnotificationmicroservice.parallel;
+
+import com.artemyakkonen.emailnotificationmicroservice.exception.NonRetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.exception.RetryableException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.RetryListener;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("KeyOrderedParallelConsumer Tests")
+class KeyOrderedParallelConsumerTest {
+    private static final String TOPIC = "user-created-events-topic";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    @Mock
+    private ConsumerFactory<String, Object> consumerFactory;
+    @Mock
+    private ConsumerRecordRecoverer recoverer;
+    @Mock
+    private RetryListener retryListener;
+
+    private MockConsumer<String, Object> consumer;
+    private final Deque<MockConsumer<String, Object>> consumers = new ConcurrentLinkedDeque<>();
+    private KeyOrderedParallelConsumer<String, Object> parallelConsumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumers.add(consumer);
+        when(consumerFactory.createConsumer(eq("user-events"), isNull(), isNull(), any(Properties.class)))
+                .thenAnswer(invocation -> consumers.poll());
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(PARTITION));
+            consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        parallelConsumer.stop();
+    }
+
+    @Test
+    @DisplayName("Should keep the order per key and commit only the processed prefix")
+    void shouldCommitProcessedPrefix() {
+        var blocker = new CountDownLatch(1);
+        Map<String, List<Long>> processed = new ConcurrentHashMap<>();
+        start(record -> {
+            if (record.offset() == 1) {
+                await(blocker);
+            }
+            processed.computeIfAbsent(record.key(), key -> new CopyOnWriteArrayList<>()).add(record.offset());
+        });
+
+        addRecords("1", "2", "1", "3", "2", "4");
+
+        awaitUntil(() -> processed.values().stream().mapToInt(List::size).sum() == 4);
+        assertThat(processed.get("2")).isNull();
+        awaitUntil(() -> committed() == 1);
+
+        blocker.countDown();
+
+        awaitUntil(() -> committed() == 6);
+        assertThat(processed.get("1")).containsExactly(0L, 2L);
+        assertThat(processed.get("2")).containsExactly(1L, 4L);
+    }
+
+    @Test
+    @DisplayName("Should retry a retryable failure and recover a non-retryable one without holding others")
+    void shouldRetryAndRecover() {
+        var attempts = new AtomicInteger();
+        start(record -> {
+            if (record.offset() == 0 && attempts.incrementAndGet() < 3) {
+                throw new RetryableException("Mail provider unavailable");
+            }
+            if (record.offset() == 1) {
+                throw new NonRetryableException("Mailbox does not exist");
+            }
+        });
+
+        addRecords("1", "2", "3");
+
+        awaitUntil(() -> committed() == 3);
+        assertThat(attempts).hasValue(3);
+        verify(recoverer).accept(any(ConsumerRecord.class), any(NonRetryableException.class));
+        verify(retryListener, never()).recoveryFailed(any(ConsumerRecord.class), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should recreate the consumer after a fatal failure and keep consuming")
+    void shouldRestartAfterFatalFailure() {
+        var failing = new MockConsumer<String, Object>(OffsetResetStrategy.EARLIEST);
+        failing.setPollException(new KafkaException("Connection to the cluster lost"));
+        consumers.addFirst(failing);
+        List<Long> processed = new CopyOnWriteArrayList<>();
+        start(record -> processed.add(record.offset()));
+
+        addRecords("1", "2");
+
+        awaitUntil(() -> committed() == 2);
+        assertThat(processed).containsExactlyInAnyOrder(0L, 1L);
+        assertThat(parallelConsumer.getRestarts()).isEqualTo(1);
+        assertThat(failing.closed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should fail the partition and redeliver the record when recovery keeps failing")
+    void shouldRestartWhenRecoveryFails() {
+        var restarted = new MockConsumer<String, Object>(OffsetResetStrategy.EARLIEST);
+        restarted.schedulePollTask(() -> {
+            restarted.rebalance(List.of(PARTITION));
+            restarted.updateBeginningOffsets(Map.of(PARTITION, 0L));
+            restarted.addRecord(new ConsumerRecord<>(TOPIC, 0, 0, "1", "event-0"));
+        });
+        consumers.add(restarted);
+        var dltUnavailable = new KafkaException("Dead letter topic unavailable");
+        doThrow(dltUnavailable, dltUnavailable, dltUnavailable).doNothing()
+                .when(recoverer).accept(any(ConsumerRecord.class), any(Exception.class));
+        start(record -> {
+            throw new NonRetryableException("Mailbox does not exist");
+        });
+
+        addRecords("1");
+
+        awaitUntil(() -> committed(restarted) == 1);
+        assertThat(parallelConsumer.getRestarts()).isEqualTo(1);
+        assertThat(consumer.closed()).isTrue();
+        verify(retryListener, times(KeyOrderedParallelConsumer.MAX_RECOVERY_ATTEMPTS))
+                .recoveryFailed(any(ConsumerRecord.class), any(), any());
+        verify(retryListener).recovered(any(ConsumerRecord.class), any());
+    }
+
+    private void start(Consumer<ConsumerRecord<String, Object>> processor) {
+        parallelConsumer = KeyOrderedParallelConsumer.<String, Object>builder()
+                .consumerFactory(consumerFactory)
+                .groupId("user-events")
+                .topics(List.of(TOPIC))
+                .processor(processor)
+                .recoverer(recoverer)
+                .backOff(new FixedBackOff(0, 3))
+                .retryable(e -> !(e instanceof NonRetryableException))
+                .retryListener(retryListener)
+                .maxInFlight(100)
+                .pollTimeout(Duration.ofMillis(10))
+                .restartInterval(Duration.ofMillis(10))
+                .build();
+        parallelConsumer.start();
+        awaitUntil(() -> parallelConsumer.getAssignment().contains(PARTITION));
+    }
+
+    private void addRecords(String... keys) {
+        for (int i = 0; i < keys.length; i++) {
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, keys[i], "event-" + i));
+        }
+    }
+
+    private long committed() {
+        return committed(consumer);
+    }
+
+    private static long committed(MockConsumer<String, Object> consumer) {
+        OffsetAndMetadata committed = consumer.committed(Set.of(PARTITION)).get(PARTITION);
+        return committed != null ? committed.offset() : -1;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            try {
+                TimeUnit.MILLISECONDS.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
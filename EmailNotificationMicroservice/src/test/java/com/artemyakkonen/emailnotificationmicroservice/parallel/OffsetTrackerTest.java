@@ -0,0 +1,44 @@
+package com.artemyakkonen.emailnotificationmicroservice.parallel;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("OffsetTracker Tests")
+class OffsetTrackerTest {
+
+    @Test
+    @DisplayName("Should commit only up to the first offset still in flight")
+    void shouldCommitContiguousPrefix() {
+        var tracker = new OffsetTracker();
+        for (long offset = 10; offset < 15; offset++) {
+            tracker.dispatched(offset);
+        }
+
+        tracker.completed(10);
+        tracker.completed(12);
+        tracker.completed(13);
+
+        assertThat(tracker.commitOffset()).hasValue(11);
+        assertThat(tracker.inFlight()).isEqualTo(2);
+
+        tracker.completed(11);
+        tracker.completed(14);
+
+        assertThat(tracker.commitOffset()).hasValue(15);
+    }
+
+    @Test
+    @DisplayName("Should have nothing to commit before dispatch and after a commit of the same offset")
+    void shouldSkipCommittedOffset() {
+        var tracker = new OffsetTracker();
+        assertThat(tracker.commitOffset()).isEmpty();
+
+        tracker.dispatched(0);
+        tracker.completed(0);
+        tracker.committed(1);
+
+        assertThat(tracker.commitOffset()).isEmpty();
+    }
+}
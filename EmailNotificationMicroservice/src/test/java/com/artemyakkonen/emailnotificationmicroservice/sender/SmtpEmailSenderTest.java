@@ -0,0 +1,136 @@
+package com.artemyakkonen.emailnotificationmicroservice.sender;
+
+import com.artemyakkonen.emailnotificationmicroservice.exception.NonRetryableException;
+import com.artemyakkonen.emailnotificationmicroservice.exception.RetryableException;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("SmtpEmailSender Tests")
+class SmtpEmailSenderTest {
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SmtpEmailSender sender;
+
+    @AfterEach
+    void tearDown() {
+        if (sender != null) {
+            sender.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should send a batch over no more sessions than the pool size")
+    void shouldReuseSessions() {
+        sender = sender(2, 100);
+
+        var failures = sender.sendAll(messages(20));
+
+        assertThat(failures).isEmpty();
+        assertThat(greenMail.getReceivedMessages()).hasSize(20);
+        assertThat(gauge("email.smtp.connections.open")).isEqualTo(2);
+        assertThat(gauge("email.smtp.connections.idle")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should send the subject and body as UTF-8 from the configured address")
+    void shouldSendMessage() throws Exception {
+        sender = sender(1, 100);
+
+        sender.send(EmailMessage.builder()
+                .to("ivan@example.com")
+                .subject("Добро пожаловать, Иван")
+                .body("Привет, Иван! Your account has been created.")
+                .build());
+
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertThat(received.getSubject()).isEqualTo("Добро пожаловать, Иван");
+        assertThat(received.getContent()).isEqualTo("Привет, Иван! Your account has been created.");
+        assertThat(received.getFrom()[0].toString()).isEqualTo("no-reply@example.com");
+    }
+
+    @Test
+    @DisplayName("Should open a new session after the message limit of a session")
+    void shouldRotateWornOutSessions() {
+        sender = sender(1, 3);
+
+        var failures = sender.sendAll(messages(7));
+
+        assertThat(failures).isEmpty();
+        assertThat(greenMail.getReceivedMessages()).hasSize(7);
+        assertThat(gauge("email.smtp.connections.open")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fail only a malformed recipient as non-retryable")
+    void shouldRejectMalformedRecipient() {
+        sender = sender(1, 100);
+        var messages = messages(3);
+        var malformed = EmailMessage.builder().to("not an address").subject("Welcome").body("Hello").build();
+
+        var failures = sender.sendAll(List.of(messages.get(0), malformed, messages.get(2)));
+
+        assertThat(failures).containsOnlyKeys(1);
+        assertThat(failures.get(1)).isInstanceOf(NonRetryableException.class);
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should fail as retryable while the server is down and reconnect afterwards")
+    void shouldReconnectAfterServerFailure() {
+        sender = sender(1, 100);
+        sender.send(messages(1).get(0));
+
+        greenMail.stop();
+        assertThatThrownBy(() -> sender.send(messages(1).get(0))).isInstanceOf(RetryableException.class);
+
+        greenMail.start();
+        sender.send(messages(1).get(0));
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+        assertThat(gauge("email.smtp.connections.open")).isEqualTo(1);
+    }
+
+    private SmtpEmailSender sender(int poolSize, int maxMessagesPerConnection) {
+        var pool = SmtpConnectionPool.builder()
+                .host(ServerSetupTest.SMTP.getBindAddress())
+                .port(ServerSetupTest.SMTP.getPort())
+                .startTls(false)
+                .size(poolSize)
+                .maxMessagesPerConnection(maxMessagesPerConnection)
+                .borrowTimeout(Duration.ofSeconds(5))
+                .validateAfterIdle(Duration.ofSeconds(10))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        pool.bindTo(meterRegistry);
+        return new SmtpEmailSender(pool, "no-reply@example.com");
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private static List<EmailMessage> messages(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> EmailMessage.builder()
+                        .to("user" + i + "@example.com")
+                        .subject("Welcome, user " + i)
+                        .body("Hello, user " + i + "! Your account has been created.")
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,63 @@
+package com.artemyakkonen.emailnotificationmicroservice.template;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Template Tests")
+class TemplateTest {
+    private static final Map<String, Function<String[], ?>> VARIABLES = Map.of(
+            "name", user -> user[0],
+            "id", user -> Long.valueOf(user[1]));
+
+    @Test
+    @DisplayName("Should render literals and variables in order")
+    void shouldRender() {
+        var template = Template.compile("Hello, ${name}! Your id is ${ id }.", VARIABLES);
+
+        assertThat(render(template, "John", "42")).isEqualTo("Hello, John! Your id is 42.");
+        assertThat(render(template, "Jane", "7")).isEqualTo("Hello, Jane! Your id is 7.");
+    }
+
+    @Test
+    @DisplayName("Should render templates without variables, adjacent variables and missing values")
+    void shouldRenderEdgeCases() {
+        assertThat(render(Template.compile("Your account has been deleted", VARIABLES), "John", "1"))
+                .isEqualTo("Your account has been deleted");
+        assertThat(render(Template.compile("${name}${id}", VARIABLES), "John", "1")).isEqualTo("John1");
+        assertThat(render(Template.compile("Price: $5, name: ${name}", VARIABLES), null, "1"))
+                .isEqualTo("Price: $5, name: ");
+    }
+
+    @Test
+    @DisplayName("Should append to the content already in the builder")
+    void shouldAppend() {
+        var out = new StringBuilder("Subject: ");
+
+        Template.compile("Welcome, ${name}", VARIABLES).renderTo(new String[]{"John", "1"}, out);
+
+        assertThat(out).hasToString("Subject: Welcome, John");
+    }
+
+    @Test
+    @DisplayName("Should reject unknown variables and unclosed placeholders on compilation")
+    void shouldRejectInvalidTemplates() {
+        assertThatThrownBy(() -> Template.compile("Hello, ${surname}", VARIABLES))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("${surname}");
+        assertThatThrownBy(() -> Template.compile("Hello, ${name", VARIABLES))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unclosed");
+    }
+
+    private static String render(Template<String[]> template, String name, String id) {
+        var out = new StringBuilder();
+        template.renderTo(new String[]{name, id}, out);
+        return out.toString();
+    }
+}
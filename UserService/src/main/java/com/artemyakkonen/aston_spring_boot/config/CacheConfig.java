@@ -0,0 +1,10 @@
+package com.artemyakkonen.aston_spring_boot.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String USERS_CACHE = "users";
+}
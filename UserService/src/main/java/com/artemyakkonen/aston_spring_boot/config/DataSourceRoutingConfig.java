@@ -0,0 +1,92 @@
+package com.artemyakkonen.aston_spring_boot.config;
+
+import com.artemyakkonen.aston_spring_boot.datasource.ReadWriteRoutingDataSource;
+import com.artemyakkonen.aston_spring_boot.datasource.ReadYourWritesFilter;
+import com.artemyakkonen.aston_spring_boot.datasource.Replica;
+import com.artemyakkonen.aston_spring_boot.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write splitting, enabled with app.datasource.routing.enabled. spring.datasource is the primary,
+ * app.datasource.routing.replica-urls lists the replicas, which share its credentials and
+ * spring.datasource.hikari settings. Read-only transactions go to the replicas, everything else to the primary:
+ * the readOnly service methods (findUser, findAllUsers, scrollUsers), the inherited CrudRepository finders and
+ * the query methods of UserRepository marked readOnly (existsByEmail, findExistingEmails, findVersionById).
+ * Declared query methods get no transaction of their own, so without that mark they run on the primary
+ * unless the caller is read-only. Inside a read-write transaction they join it and stay on the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    ReadWriteRoutingDataSource readWriteRoutingDataSource(DataSourceProperties properties,
+                                                          Environment environment,
+                                                          MeterRegistry meterRegistry,
+                                                          @Value("${app.datasource.routing.replica-urls}") String[] replicaUrls){
+        var binder = Binder.get(environment);
+
+        HikariDataSource primary = pool(properties, properties.determineUrl(), "primary", binder, meterRegistry);
+
+        List<Replica> replicas = new ArrayList<>(replicaUrls.length);
+        for (int i = 0; i < replicaUrls.length; i++) {
+            String name = "replica-" + i;
+            HikariDataSource pool = pool(properties, replicaUrls[i].trim(), name, binder, meterRegistry);
+            pool.setReadOnly(true);
+            replicas.add(new Replica(name, pool));
+        }
+
+        return new ReadWriteRoutingDataSource(primary, replicas);
+    }
+
+    /**
+     * Physical connections are taken on the first statement, when the transaction's
+     * read-only flag is already set, rather than when the transaction begins.
+     */
+    @Bean
+    @Primary
+    DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource){
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Bean
+    ReplicaLagMonitor replicaLagMonitor(ReadWriteRoutingDataSource readWriteRoutingDataSource,
+                                        @Value("${app.datasource.routing.lag-query}") String lagQuery,
+                                        @Value("${app.datasource.routing.max-lag-ms}") long maxLagMs,
+                                        @Value("${app.datasource.routing.lag-check-interval-ms}") long lagCheckIntervalMs){
+        return new ReplicaLagMonitor(readWriteRoutingDataSource, lagQuery, maxLagMs, lagCheckIntervalMs);
+    }
+
+    @Bean
+    ReadYourWritesFilter readYourWritesFilter(@Value("${app.datasource.routing.sticky-window-ms}") long stickyWindowMs){
+        return new ReadYourWritesFilter(stickyWindowMs);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String url, String name,
+                                         Binder binder, MeterRegistry meterRegistry){
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
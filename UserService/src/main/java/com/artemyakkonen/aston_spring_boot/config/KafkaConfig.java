@@ -1,21 +1,34 @@
 package com.artemyakkonen.aston_spring_boot.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
-import org.springframework.kafka.core.DefaultKafkaProducerFactory;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.core.*;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Producer and consumer factories register Micrometer listeners, so the Kafka client metrics
+ * (record send rate and errors, request latency, consumer lag) are exported as kafka.producer.* and kafka.consumer.*.
+ */
 @Configuration
 public class KafkaConfig {
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
@@ -43,6 +56,21 @@ public class KafkaConfig {
     @Value("${spring.kafka.producer.properties.max.in.flight.requests.per.connection}")
     private String maxInFlightRequests;
 
+    @Value("${spring.kafka.consumer.auto-offset-reset}")
+    private String autoOffsetReset;
+
+    @Value("${spring.kafka.consumer.properties.spring.json.trusted.packages}")
+    private String trustedPackages;
+
+    @Value("${app.outbox.producer.linger-ms}")
+    private String outboxLinger;
+
+    @Value("${app.outbox.producer.batch-size}")
+    private String outboxBatchSize;
+
+    @Value("${app.outbox.producer.compression-type}")
+    private String outboxCompressionType;
+
     Map<String, Object> producerConfigs(){
         Map<String, Object> config = new HashMap<>();
 
@@ -59,16 +87,66 @@ public class KafkaConfig {
         return config;
     }
 
+    Map<String, Object> outboxProducerConfigs(){
+        Map<String, Object> config = producerConfigs();
+
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, outboxLinger);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, outboxBatchSize);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, outboxCompressionType);
+
+        return config;
+    }
+
     @Bean
+    @Primary
     ProducerFactory<String, Object> producerFactory(){
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(producerConfigs());
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
+    @Primary
     KafkaTemplate<String, Object> kafkaTemplate(){
         return new KafkaTemplate<String, Object>(producerFactory());
     }
 
+    @Bean
+    ProducerFactory<String, String> outboxProducerFactory(){
+        DefaultKafkaProducerFactory<String, String> factory = new DefaultKafkaProducerFactory<>(outboxProducerConfigs());
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    KafkaTemplate<String, String> outboxKafkaTemplate(){
+        return new KafkaTemplate<String, String>(outboxProducerFactory());
+    }
+
+    @Bean
+    ConsumerFactory<String, Object> consumerFactory(){
+        Map<String, Object> config = new HashMap<>();
+
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        config.put(JsonDeserializer.TRUSTED_PACKAGES, trustedPackages);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
+
+        DefaultKafkaConsumerFactory<String, Object> factory = new DefaultKafkaConsumerFactory<>(config);
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(){
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        return factory;
+    }
+
     @Bean
     public NewTopic userCreatedTopic() {
         return TopicBuilder.name("user-created-events-topic")
@@ -87,4 +165,22 @@ public class KafkaConfig {
                 .build();
     }
 
+    @Bean
+    public NewTopic userUpdatedTopic() {
+        return TopicBuilder.name("user-updated-events-topic")
+                .partitions(3)
+                .replicas(3)
+                .configs(Map.of("min.insync.replicas", "2"))
+                .build();
+    }
+
+    @Bean
+    public NewTopic emailRequestedTopic() {
+        return TopicBuilder.name("email-requested-topic")
+                .partitions(6)
+                .replicas(3)
+                .configs(Map.of("min.insync.replicas", "2"))
+                .build();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.artemyakkonen.aston_spring_boot.config;
+
+import com.artemyakkonen.aston_spring_boot.model.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second-level cache for {@link User} and its email natural id, enabled with
+ * app.users.second-level-cache.enabled. The regions are Caffeine JCache caches with their own size
+ * and expiry; hit and miss counts per region are exported by the Hibernate statistics
+ * (hibernate.second.level.cache.requests, hibernate.cache.natural.id.requests).
+ * <p>
+ * Each context gets a CacheManager of its own, closed with the context. The provider's default manager is
+ * shared by the whole class loader, so a second context (tests, a restart in the same JVM) would find
+ * the regions already created there.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.users.second-level-cache", name = "enabled", havingValue = "true")
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    CacheManager userSecondLevelCacheManager(
+            @Value("${app.users.second-level-cache.entity.maximum-size}") long entityMaximumSize,
+            @Value("${app.users.second-level-cache.entity.expire-after-write-ms}") long entityExpireAfterWriteMs,
+            @Value("${app.users.second-level-cache.natural-id.maximum-size}") long naturalIdMaximumSize,
+            @Value("${app.users.second-level-cache.natural-id.expire-after-write-ms}") long naturalIdExpireAfterWriteMs,
+            @Value("${app.users.second-level-cache.statistics-enabled}") boolean statisticsEnabled){
+        return cacheManager(region(entityMaximumSize, entityExpireAfterWriteMs, statisticsEnabled),
+                region(naturalIdMaximumSize, naturalIdExpireAfterWriteMs, statisticsEnabled));
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager userSecondLevelCacheManager){
+        return properties -> properties.putAll(hibernateProperties(userSecondLevelCacheManager));
+    }
+
+    /**
+     * Settings that enable the cache on a Hibernate bootstrap, public for the benchmarks.
+     * Regions missing from the cache manager fail the bootstrap instead of being created unbounded.
+     */
+    public static Map<String, Object> hibernateProperties(CacheManager cacheManager){
+        return Map.of(
+                AvailableSettings.USE_SECOND_LEVEL_CACHE, true,
+                AvailableSettings.CACHE_REGION_FACTORY, "jcache",
+                ConfigSettings.CACHE_MANAGER, cacheManager,
+                ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+    }
+
+    /**
+     * A new CacheManager under a URI of its own holding the User regions, public for the tests and benchmarks.
+     * The caller closes it.
+     */
+    public static CacheManager cacheManager(CaffeineConfiguration<Object, Object> entityRegion,
+                                            CaffeineConfiguration<Object, Object> naturalIdRegion){
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("user-second-level-cache-" + UUID.randomUUID()), provider.getDefaultClassLoader());
+        cacheManager.createCache(User.ENTITY_CACHE_REGION, entityRegion);
+        cacheManager.createCache(User.NATURAL_ID_CACHE_REGION, naturalIdRegion);
+        return cacheManager;
+    }
+
+    public static CaffeineConfiguration<Object, Object> region(long maximumSize, long expireAfterWriteMs,
+                                                               boolean statisticsEnabled){
+        var configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(expireAfterWriteMs)));
+        configuration.setStatisticsEnabled(statisticsEnabled);
+        return configuration;
+    }
+}
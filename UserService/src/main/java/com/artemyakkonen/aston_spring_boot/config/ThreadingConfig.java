@@ -0,0 +1,116 @@
+package com.artemyakkonen.aston_spring_boot.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Virtual threads are opt-in through spring.threads.virtual.enabled: Spring Boot then serves
+ * Tomcat requests and MVC async (streaming export) from virtual threads.
+ * Scheduled jobs stay on platform threads: the outbox relay blocks inside the Kafka producer,
+ * whose metadata wait is a synchronized Object.wait() and would pin a carrier thread on Java 21.
+ * Kafka listener containers use the factory from {@link KafkaConfig} and keep platform threads too.
+ */
+@Configuration
+public class ThreadingConfig implements SchedulingConfigurer, DisposableBean {
+    private static final int SCHEDULER_POOL_SIZE = 2;
+
+    // Not a bean on purpose: an Executor bean would make Boot back off from its applicationTaskExecutor
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        scheduler.setPoolSize(SCHEDULER_POOL_SIZE);
+        scheduler.setThreadNamePrefix("scheduling-");
+        scheduler.initialize();
+        taskRegistrar.setTaskScheduler(scheduler);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+    }
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    MeterBinder carrierThreadMetrics() {
+        return new CarrierThreadMetrics();
+    }
+
+    /**
+     * Samples the carrier threads of the default virtual thread scheduler. More carriers than
+     * the configured parallelism means the scheduler compensated for pinned or blocked carriers.
+     * One sample serves all gauges of a scrape; it enumerates the live threads without taking
+     * their stack traces.
+     */
+    static class CarrierThreadMetrics implements MeterBinder {
+        private static final String CARRIER_THREAD_CLASS = "jdk.internal.misc.CarrierThread";
+        private static final long SAMPLE_TTL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private final int parallelism = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+                Runtime.getRuntime().availableProcessors());
+        private final ThreadGroup rootGroup = rootGroup();
+
+        private Sample sample = new Sample(0, 0, System.nanoTime() - SAMPLE_TTL_NANOS);
+
+        @Override
+        public void bindTo(MeterRegistry registry) {
+            Gauge.builder("jvm.threads.virtual.carrier.parallelism", () -> parallelism)
+                    .description("Target number of carrier threads of the virtual thread scheduler")
+                    .register(registry);
+            Gauge.builder("jvm.threads.virtual.carrier.threads", () -> sample().carriers())
+                    .tag("state", "all")
+                    .description("Live carrier threads")
+                    .register(registry);
+            Gauge.builder("jvm.threads.virtual.carrier.threads", () -> sample().runnable())
+                    .tag("state", "runnable")
+                    .description("Carrier threads currently running a virtual thread")
+                    .register(registry);
+            Gauge.builder("jvm.threads.virtual.carrier.utilization", () -> (double) sample().runnable() / parallelism)
+                    .description("Runnable carrier threads relative to the scheduler parallelism")
+                    .register(registry);
+        }
+
+        private synchronized Sample sample() {
+            long now = System.nanoTime();
+            if (now - sample.takenNanos() < SAMPLE_TTL_NANOS) {
+                return sample;
+            }
+            Thread[] threads = new Thread[rootGroup.activeCount() + 16];
+            int count = rootGroup.enumerate(threads, true);
+            int carriers = 0;
+            int runnable = 0;
+            for (int i = 0; i < count; i++) {
+                if (CARRIER_THREAD_CLASS.equals(threads[i].getClass().getName())) {
+                    carriers++;
+                    if (threads[i].getState() == Thread.State.RUNNABLE) {
+                        runnable++;
+                    }
+                }
+            }
+            sample = new Sample(carriers, runnable, now);
+            return sample;
+        }
+
+        private static ThreadGroup rootGroup() {
+            ThreadGroup group = Thread.currentThread().getThreadGroup();
+            while (group.getParent() != null) {
+                group = group.getParent();
+            }
+            return group;
+        }
+
+        private record Sample(int carriers, int runnable, long takenNanos) {
+        }
+    }
+}
@@ -5,16 +5,22 @@ import com.artemyakkonen.aston_spring_boot.service.EmailService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 
 @Tag(name = "Send emails to users", description = "API for sending email to users")
 @Slf4j
@@ -25,17 +31,32 @@ import org.springframework.web.bind.annotation.*;
 public class EmailController {
     private final EmailService emailService;
 
-    @Operation(summary = "Send email to user", description = "Sends email to user")
+    @Operation(summary = "Send email to user",
+            description = "Queues an email to the user, it is delivered asynchronously by EmailNotificationMicroservice")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Email sent successfully"),
+            @ApiResponse(responseCode = "202", description = "Email queued for sending"),
             @ApiResponse(responseCode = "404", description = "No such email")
     })
     @PostMapping
-    @ResponseStatus(HttpStatus.OK)
+    @ResponseStatus(HttpStatus.ACCEPTED)
     void sendEmail(@Parameter(description = "Users email and message", required = true) @RequestBody @Valid EmailMessageDTO dto){
         log.info("POST /api/email");
         emailService.send(dto.getEmail(), dto.getMessage());
     }
 
+    @Operation(summary = "Send emails in batch",
+            description = "Queues up to 10000 messages in one request and returns a result for every message")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Batch processed, see per-message status",
+                    content = @Content(schema = @Schema(implementation = EmailBatchItemResultDTO[].class))),
+            @ApiResponse(responseCode = "400", description = "Batch is empty or too large")
+    })
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    List<EmailBatchItemResultDTO> sendEmails(@Parameter(description = "Users emails and messages", required = true)
+                                             @RequestBody @NotEmpty @Size(max = 10000) List<EmailMessageDTO> dtos){
+        log.info("POST /api/email/batch, size={}", dtos.size());
+        return emailService.sendAll(dtos);
+    }
 
 }
\ No newline at end of file
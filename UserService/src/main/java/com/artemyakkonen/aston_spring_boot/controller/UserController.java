@@ -1,10 +1,17 @@
 package com.artemyakkonen.aston_spring_boot.controller;
 
+import com.artemyakkonen.aston_spring_boot.dto.UserBatchItemResultDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserBulkDeleteResultDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserCreateDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserParamsDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserSliceDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserUpdateDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserVersionDTO;
 import com.artemyakkonen.aston_spring_boot.hateoas.UserDTOModelAssembler;
+import com.artemyakkonen.aston_spring_boot.hateoas.UserETags;
+import com.artemyakkonen.aston_spring_boot.service.UserBatchService;
+import com.artemyakkonen.aston_spring_boot.service.UserExportService;
 import com.artemyakkonen.aston_spring_boot.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,15 +21,27 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
 import java.util.List;
@@ -34,7 +53,11 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
+    public static final String LEAN_JSON_VALUE = "application/vnd.users.lean+json";
+
     private final UserService userService;
+    private final UserBatchService userBatchService;
+    private final UserExportService userExportService;
     private final UserDTOModelAssembler userDTOModelAssembler;
 
     @Operation(
@@ -47,6 +70,7 @@ public class UserController {
                     description = "User found successfully",
                     content = @Content(schema = @Schema(implementation = UserDTO.class))
             ),
+            @ApiResponse(responseCode = "304", description = "User not modified since the given ETag or date"),
             @ApiResponse(
                     responseCode = "404",
                     description = "User not found",
@@ -55,13 +79,26 @@ public class UserController {
             @ApiResponse(responseCode = "400", description = "Invalid ID format")
     })
     @GetMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public EntityModel<UserDTO> getUser(
+    public ResponseEntity<EntityModel<UserDTO>> getUser(
             @Parameter(description = "User ID", example = "1", required = true)
-            @PathVariable Long id){
+            @PathVariable Long id,
+            WebRequest request){
         log.info("GET /api/users/{}", id);
+        if (isConditional(request)) {
+            var current = userService.findUserVersion(id);
+            if (current.isPresent()
+                    && request.checkNotModified(UserETags.of(current.get()), UserETags.lastModified(current.get()))) {
+                log.debug("User {} not modified", id);
+                return null;
+            }
+        }
         var userDTO = userService.findUser(id);
-        return userDTOModelAssembler.toModel(userDTO);
+        var version = UserVersionDTO.of(userDTO);
+        var response = ResponseEntity.ok().eTag(UserETags.of(version));
+        if (version.getUpdatedAt() != null) {
+            response.lastModified(UserETags.lastModified(version));
+        }
+        return response.body(userDTOModelAssembler.toModel(userDTO));
     }
 
     @Operation(
@@ -79,6 +116,8 @@ public class UserController {
         **Pagination:**
         - `page`: Page number (0-based)
         - `size`: Page size
+        - `paging`: `offset` (default) or `keyset`. Keyset mode skips the total count and returns a `next` link
+        - `after`: Cursor taken from the `next` link, implies keyset mode
         
         **Sorting:**
         - `sortBy`: Field to sort by (id, createdAt, name, age, email)
@@ -94,12 +133,96 @@ public class UserController {
             @ApiResponse(responseCode = "400", description = "Invalid query parameters")
     })
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public CollectionModel<EntityModel<UserDTO>> getAllUses(@Parameter(description = "Search and pagination parameters")
-                             @Valid UserParamsDTO params){
+    public ResponseEntity<CollectionModel<EntityModel<UserDTO>>> getAllUses(@Parameter(description = "Search and pagination parameters")
+                             @Valid UserParamsDTO params,
+                             WebRequest request){
         log.info("GET /api/users");
-        var userDTOs = userService.findAllUsers(params);
-        return CollectionModel.of(userDTOs.stream().map(userDTOModelAssembler::toModel).toList());
+        var page = findPage(params);
+        var eTag = UserETags.of(MediaTypes.HAL_JSON_VALUE, page.getUsers(), page.getNextCursor());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        var model = CollectionModel.of(page.getUsers().stream().map(userDTOModelAssembler::toModel).toList());
+        if (page.getNextCursor() != null) {
+            model.add(nextLink(page.getNextCursor()));
+        }
+        return ResponseEntity.ok().eTag(eTag).body(model);
+    }
+
+    @Operation(
+            summary = "Get all users, lean representation",
+            description = """
+        Same filters and pagination as the HAL variant, selected with `Accept: application/vnd.users.lean+json`.
+        Returns a plain JSON array without links, the keyset `next` link is sent in the `Link` header.
+        Intended for internal callers that do not navigate links.
+        """
+    )
+    @GetMapping(produces = LEAN_JSON_VALUE)
+    public ResponseEntity<List<UserDTO>> getAllUsersLean(@Parameter(description = "Search and pagination parameters")
+                                                         @Valid UserParamsDTO params,
+                                                         WebRequest request){
+        log.info("GET /api/users (lean)");
+        var page = findPage(params);
+        var eTag = UserETags.of(LEAN_JSON_VALUE, page.getUsers(), page.getNextCursor());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        var response = ResponseEntity.ok().eTag(eTag);
+        if (page.getNextCursor() != null) {
+            response.header(HttpHeaders.LINK, nextLink(page.getNextCursor()).toString());
+        }
+        return response.body(page.getUsers());
+    }
+
+    private static boolean isConditional(WebRequest request){
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    private UserSliceDTO findPage(UserParamsDTO params){
+        if (params.isKeyset()) {
+            return userService.scrollUsers(params);
+        }
+        return UserSliceDTO.builder()
+                .users(userService.findAllUsers(params))
+                .build();
+    }
+
+    private Link nextLink(String cursor){
+        return Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("paging", "keyset")
+                .replaceQueryParam("after", cursor)
+                .build()
+                .toUriString(), IanaLinkRelations.NEXT);
+    }
+
+    @Operation(
+            summary = "Export users",
+            description = """
+        Streams every user matching the filters of `GET /api/users` as NDJSON (default) or CSV.
+        Pagination and sorting parameters are ignored, users are exported in id order.
+        """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export stream started"),
+            @ApiResponse(responseCode = "400", description = "Invalid query parameters")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @Parameter(description = "Search parameters") @Valid UserParamsDTO params,
+            @Parameter(description = "Export format", schema = @Schema(allowableValues = {"ndjson", "csv"}))
+            @RequestParam(defaultValue = "ndjson")
+            @Pattern(regexp = "ndjson|csv", message = "Format must be 'ndjson' or 'csv'") String format){
+        log.info("GET /api/users/export, format={}", format);
+        var exportFormat = UserExportService.Format.valueOf(format.toUpperCase());
+        StreamingResponseBody body = outputStream -> userExportService.export(params, exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("users." + exportFormat.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
     }
 
     @Operation(summary = "Create new user", description = "Creates a new user in the db")
@@ -118,6 +241,21 @@ public class UserController {
         return userDTOModelAssembler.toModel(userDTO);
     }
 
+    @Operation(summary = "Create users in batch",
+            description = "Creates up to 10000 users in one request and returns a result for every item")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item status",
+                    content = @Content(schema = @Schema(implementation = UserBatchItemResultDTO[].class))),
+            @ApiResponse(responseCode = "400", description = "Batch is empty or too large")
+    })
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    List<UserBatchItemResultDTO> createUsers(@Parameter(description = "Users data for creation", required = true)
+                                             @RequestBody @NotEmpty @Size(max = 10000) List<UserCreateDTO> dtos){
+        log.info("POST /api/users/batch, size={}", dtos.size());
+        return userBatchService.createUsers(dtos);
+    }
+
     @Operation(summary = "Delete user", description = "Deletes a user by their ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "User deleted successfully"),
@@ -131,20 +269,45 @@ public class UserController {
         userService.deleteUser(id);
     }
 
-    @Operation(summary = "Update user", description = "Partially updates an existing user")
+    @Operation(summary = "Delete users in batch",
+            description = "Deletes up to 10000 users by ids, emitting a deletion event for every deleted user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see deleted and not found ids",
+                    content = @Content(schema = @Schema(implementation = UserBulkDeleteResultDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Ids are missing or too many")
+    })
+    @DeleteMapping
+    @ResponseStatus(HttpStatus.OK)
+    UserBulkDeleteResultDTO deleteUsers(@Parameter(description = "Comma separated user ids", example = "1,2,3", required = true)
+                                        @RequestParam @NotEmpty @Size(max = 10000) List<Long> ids){
+        log.info("DELETE /api/users, size={}", ids.size());
+        return userBatchService.deleteUsers(ids);
+    }
+
+    @Operation(summary = "Update user",
+            description = "Partially updates an existing user. The version the update is based on is taken from "
+                    + "the body or, when absent there, from an If-Match ETag returned by GET")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User updated successfully",
                     content = @Content(schema = @Schema(implementation = UserDTO.class))),
             @ApiResponse(responseCode = "400", description = "Invalid update data"),
-            @ApiResponse(responseCode = "404", description = "User not found")
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "409", description = "User was changed since the given version"),
+            @ApiResponse(responseCode = "428", description = "Neither version nor If-Match is given")
     })
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     EntityModel<UserDTO> updateUser(@Parameter(description = "User data for update", required = true)
                        @RequestBody @Valid UserUpdateDTO dto,
                        @Parameter(description = "User ID to update", example = "1")
-                       @PathVariable Long id){
+                       @PathVariable Long id,
+                       @Parameter(description = "ETag of the user the update is based on")
+                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
         log.info("PUT /api/users/{}", id);
+        if (dto.getVersion() == null && ifMatch != null) {
+            dto.setVersion(UserETags.version(ifMatch, id).orElseThrow(() -> new OptimisticLockingFailureException(
+                    String.format("If-Match %s is not a current ETag of user with id %d", ifMatch, id))));
+        }
         var userDTO = userService.updateUser(id, dto);
         return userDTOModelAssembler.toModel(userDTO);
     }
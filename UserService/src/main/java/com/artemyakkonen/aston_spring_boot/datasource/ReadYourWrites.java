@@ -0,0 +1,42 @@
+package com.artemyakkonen.aston_spring_boot.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the current thread's reads as having to see the client's own recent writes,
+ * which replicas may not have replayed yet. Set per request by {@link ReadYourWritesFilter}.
+ */
+public final class ReadYourWrites {
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    public static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+
+    /**
+     * Runs {@code action} with its read-only transactions on the primary, for snapshots that must not
+     * miss rows committed within the replica lag, such as the email filter and the name index.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean required = isPrimaryRequired();
+        requirePrimary();
+        try {
+            return action.get();
+        } finally {
+            if (!required) {
+                clear();
+            }
+        }
+    }
+}
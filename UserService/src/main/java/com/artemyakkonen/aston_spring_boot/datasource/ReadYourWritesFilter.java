@@ -0,0 +1,68 @@
+package com.artemyakkonen.aston_spring_boot.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Read-your-writes stickiness. A mutating request sets a cookie holding the time until which the
+ * client's reads must go to the primary; requests carrying an unexpired cookie read from the primary.
+ * The cookie is set before the request is handled, as the response may be committed by then,
+ * so a failed write makes the client sticky too.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    public static final String COOKIE_NAME = "rw-sticky-until";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private final long stickyWindowMs;
+
+    public ReadYourWritesFilter(long stickyWindowMs) {
+        this.stickyWindowMs = stickyWindowMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        if (!SAFE_METHODS.contains(request.getMethod())) {
+            var cookie = new Cookie(COOKIE_NAME, String.valueOf(now + stickyWindowMs));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.ceil(stickyWindowMs / 1000.0));
+            response.addCookie(cookie);
+            ReadYourWrites.requirePrimary();
+        } else if (stickyUntil(request) > now) {
+            ReadYourWrites.requirePrimary();
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    private static long stickyUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.artemyakkonen.aston_spring_boot.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+
+/**
+ * Connection pool of one read replica with the result of its last lag check.
+ * A replica starts unhealthy and receives reads only after its first successful check. A passed check
+ * is trusted only for a limited time, so a replica keeps out of rotation when its checks stop running.
+ */
+@Getter
+public class Replica {
+    private final String name;
+    private final HikariDataSource dataSource;
+
+    private volatile boolean healthy;
+    private volatile long lagMillis = -1;
+    private volatile long checkedAtNanos;
+    private volatile long validForNanos;
+
+    public Replica(String name, HikariDataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @return whether the last check passed and is not older than its validity
+     */
+    public boolean isHealthy() {
+        return healthy && System.nanoTime() - checkedAtNanos <= validForNanos;
+    }
+
+    void lagChecked(long lagMillis, boolean healthy, long validForNanos) {
+        this.lagMillis = lagMillis;
+        this.checkedAtNanos = System.nanoTime();
+        this.validForNanos = validForNanos;
+        this.healthy = healthy;
+    }
+}
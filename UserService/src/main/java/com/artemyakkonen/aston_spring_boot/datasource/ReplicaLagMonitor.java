@@ -0,0 +1,79 @@
+package com.artemyakkonen.aston_spring_boot.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically runs the lag query on every replica. A replica whose lag exceeds the limit,
+ * or whose check fails, stops receiving reads until a later check is within the limit again.
+ * A passed check is valid for {@value #CHECKS_UNTIL_STALE} check intervals: when the monitor is starved
+ * on the shared scheduler or stops, its replicas drop out of rotation instead of staying in it unchecked.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements MeterBinder {
+    private static final int QUERY_TIMEOUT_SECONDS = 2;
+    public static final int CHECKS_UNTIL_STALE = 3;
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final String lagQuery;
+    private final long maxLagMs;
+    private final long validForNanos;
+
+    public ReplicaLagMonitor(ReadWriteRoutingDataSource routingDataSource, String lagQuery, long maxLagMs,
+                             long checkIntervalMs) {
+        this.routingDataSource = routingDataSource;
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+        this.validForNanos = TimeUnit.MILLISECONDS.toNanos(checkIntervalMs * CHECKS_UNTIL_STALE);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.routing.lag-check-interval-ms}")
+    public void checkReplicas() {
+        routingDataSource.getReplicas().forEach(this::check);
+    }
+
+    void check(Replica replica) {
+        boolean wasHealthy = replica.isHealthy();
+        try (Connection connection = replica.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                resultSet.next();
+                long lagMillis = resultSet.getLong(1);
+                replica.lagChecked(lagMillis, lagMillis <= maxLagMs, validForNanos);
+            }
+        } catch (Exception e) {
+            replica.lagChecked(-1, false, validForNanos);
+            log.debug("Lag check of replica {} failed", replica.getName(), e);
+        }
+
+        if (!wasHealthy && replica.isHealthy()) {
+            log.info("Replica {} is in rotation, lag {} ms", replica.getName(), replica.getLagMillis());
+        } else if (wasHealthy && !replica.isHealthy()) {
+            log.warn("Replica {} is out of rotation, lag {} ms", replica.getName(), replica.getLagMillis());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : routingDataSource.getReplicas()) {
+            Gauge.builder("datasource.replica.lag", replica, Replica::getLagMillis)
+                    .tag("replica", replica.getName())
+                    .baseUnit("milliseconds")
+                    .description("Replication lag at the last check, -1 when the check failed")
+                    .register(registry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                    .tag("replica", replica.getName())
+                    .description("1 while the replica receives reads")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.artemyakkonen.aston_spring_boot.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Schema(description = "Result of queueing a single message from a batch")
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class EmailBatchItemResultDTO {
+    @Schema(description = "Position of the message in the request", example = "0")
+    private Integer index;
+
+    @Schema(description = "Recipient of the message", example = "john.doe@example.com")
+    private String email;
+
+    @Schema(description = "Outcome for the message", example = "QUEUED")
+    private Status status;
+
+    @Schema(description = "Reason the message was not queued", example = "User with this email not found")
+    private String error;
+
+    public enum Status {
+        QUEUED,
+        INVALID,
+        NOT_FOUND,
+        FAILED
+    }
+}
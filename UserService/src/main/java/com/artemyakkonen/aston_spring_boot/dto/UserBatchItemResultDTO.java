@@ -0,0 +1,33 @@
+package com.artemyakkonen.aston_spring_boot.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Schema(description = "Result of creating a single user from a batch")
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class UserBatchItemResultDTO {
+    @Schema(description = "Position of the item in the request", example = "0")
+    private Integer index;
+
+    @Schema(description = "Outcome for the item", example = "CREATED")
+    private Status status;
+
+    @Schema(description = "Created user, present when status is CREATED")
+    private UserDTO user;
+
+    @Schema(description = "Reason the item was rejected", example = "Email already exists")
+    private String error;
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        DUPLICATE,
+        FAILED
+    }
+}
@@ -0,0 +1,25 @@
+package com.artemyakkonen.aston_spring_boot.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Schema(description = "Result of deleting users by ids")
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class UserBulkDeleteResultDTO {
+    @Schema(description = "Ids of deleted users", example = "[1, 2]")
+    private List<Long> deleted;
+
+    @Schema(description = "Requested ids that did not exist", example = "[3]")
+    private List<Long> notFound;
+
+    @Schema(description = "Requested ids whose chunk could not be deleted", example = "[]")
+    private List<Long> failed;
+}
@@ -28,4 +28,10 @@ public class UserDTO {
 
     @Schema(description = "Timestamp when user was created", example = "2024-01-15T10:30:00")
     private LocalDateTime createdAt;
+
+    @Schema(description = "Timestamp of the last modification", example = "2024-02-01T08:15:00")
+    private LocalDateTime updatedAt;
+
+    @Schema(description = "Version of the user, send it back on update to detect concurrent edits", example = "3")
+    private Long version;
 }
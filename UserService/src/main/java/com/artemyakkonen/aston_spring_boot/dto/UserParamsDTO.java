@@ -36,6 +36,17 @@ public class UserParamsDTO {
     private LocalDateTime createdAtLt;
 
 
+    @Parameter(
+            description = "Paging mode: offset pages or keyset (cursor) scrolling without total count",
+            example = "offset",
+            schema = @Schema(allowableValues = {"offset", "keyset"})
+    )
+    @Pattern(regexp = "offset|keyset", message = "Paging must be 'offset' or 'keyset'")
+    private String paging = "offset";
+
+    @Parameter(description = "Opaque cursor from the 'next' link, implies keyset paging")
+    private String after;
+
     @Parameter(description = "Page number (0-based)", example = "0")
     private Integer page = 0;
 
@@ -64,4 +75,14 @@ public class UserParamsDTO {
         return PageRequest.of(page, size,
                 Sort.by(Sort.Direction.fromString(sortDirection), sortBy));
     }
+
+    public Sort toKeysetSort() {
+        var direction = Sort.Direction.fromString(sortDirection);
+        var sort = Sort.by(direction, sortBy);
+        return sortBy.equals("id") ? sort : sort.and(Sort.by(direction, "id"));
+    }
+
+    public boolean isKeyset() {
+        return "keyset".equals(paging) || after != null;
+    }
 }
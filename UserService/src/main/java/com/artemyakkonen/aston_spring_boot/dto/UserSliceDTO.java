@@ -0,0 +1,18 @@
+package com.artemyakkonen.aston_spring_boot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Builder
+@Getter
+@Setter
+public class UserSliceDTO {
+    private List<UserDTO> users;
+
+    private String nextCursor;
+}
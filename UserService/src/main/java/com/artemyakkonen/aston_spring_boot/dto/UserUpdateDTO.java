@@ -45,4 +45,11 @@ public class UserUpdateDTO {
     @Min(1)
     @Max(150)
     private JsonNullable<Integer> age;
+
+    @Schema(
+            description = "Version the update is based on, required unless If-Match is sent. The update fails with 409 if the user was changed since",
+            example = "3"
+    )
+    @PositiveOrZero
+    private Long version;
 }
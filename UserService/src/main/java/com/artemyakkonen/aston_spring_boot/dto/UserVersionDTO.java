@@ -0,0 +1,21 @@
+package com.artemyakkonen.aston_spring_boot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Version columns of a user, enough to answer a conditional GET without loading the whole row.
+ */
+@AllArgsConstructor
+@Getter
+public class UserVersionDTO {
+    private Long id;
+    private Long version;
+    private LocalDateTime updatedAt;
+
+    public static UserVersionDTO of(UserDTO user) {
+        return new UserVersionDTO(user.getId(), user.getVersion(), user.getUpdatedAt());
+    }
+}
@@ -0,0 +1,11 @@
+package com.artemyakkonen.aston_spring_boot.exception;
+
+public class InvalidPagingException extends RuntimeException {
+    public InvalidPagingException(String message) {
+        super(message);
+    }
+
+    public InvalidPagingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
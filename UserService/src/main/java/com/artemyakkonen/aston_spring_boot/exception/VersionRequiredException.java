@@ -0,0 +1,7 @@
+package com.artemyakkonen.aston_spring_boot.exception;
+
+public class VersionRequiredException extends RuntimeException {
+    public VersionRequiredException(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,12 @@
 package com.artemyakkonen.aston_spring_boot.handler;
 
+import com.artemyakkonen.aston_spring_boot.exception.InvalidPagingException;
 import com.artemyakkonen.aston_spring_boot.exception.UserNotFoundException;
+import com.artemyakkonen.aston_spring_boot.exception.VersionRequiredException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -31,6 +34,30 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(InvalidPagingException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidPaging(InvalidPagingException ex) {
+        log.warn("Invalid paging parameters: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "INVALID_PAGING",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(VersionRequiredException.class)
+    public ResponseEntity<ErrorResponse> handleVersionRequired(VersionRequiredException ex) {
+        log.warn("Update without version: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.PRECONDITION_REQUIRED.value(),
+                "VERSION_REQUIRED",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED).body(error);
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<ErrorResponse> handleConstraintViolation(ConstraintViolationException ex) {
         String errorMessage = ex.getConstraintViolations().stream()
@@ -48,6 +75,18 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        log.warn("Concurrent modification: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                "VERSION_CONFLICT",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ErrorResponse> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
         String message = ex.getMessage() != null &&
@@ -0,0 +1,75 @@
+package com.artemyakkonen.aston_spring_boot.handler;
+
+import com.artemyakkonen.aston_spring_boot.config.CacheConfig;
+import com.artemyakkonen.aston_spring_boot.search.NameNgramIndex;
+import com.artemyakkonen.aston_spring_boot.service.EmailExistenceFilter;
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.core.UserDeletedEvent;
+import com.artemyakkonen.core.UserUpdatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.kafka.annotation.KafkaHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Keeps instance-local state in sync with writes made by any UserService replica.
+ * Every instance consumes with its own group id, so each one sees all events. It starts at the
+ * latest offsets, so the email filter is built only once the partitions are assigned and their
+ * positions resolved: every earlier event is then covered by the database snapshot.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.kafka.listeners", name = "enabled", havingValue = "true", matchIfMissing = true)
+@KafkaListener(topics = {"user-created-events-topic", "user-updated-events-topic", "user-deleted-events-topic"},
+        groupId = "${app.kafka.instance-group-id}")
+public class UserEventsHandler implements ConsumerSeekAware {
+    private final Cache usersCache;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final NameNgramIndex nameNgramIndex;
+
+    public UserEventsHandler(CacheManager cacheManager,
+                             EmailExistenceFilter emailExistenceFilter,
+                             NameNgramIndex nameNgramIndex) {
+        this.usersCache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.nameNgramIndex = nameNgramIndex;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback){
+        emailExistenceFilter.partitionsAssigned();
+    }
+
+    @KafkaHandler
+    public void handle(UserCreatedEvent userCreatedEvent){
+        evict(userCreatedEvent.getId());
+        emailExistenceFilter.add(userCreatedEvent.getEmail());
+        nameNgramIndex.add(userCreatedEvent.getId(), userCreatedEvent.getName());
+    }
+
+    @KafkaHandler
+    public void handle(UserUpdatedEvent userUpdatedEvent){
+        evict(userUpdatedEvent.getId());
+        emailExistenceFilter.add(userUpdatedEvent.getEmail());
+        nameNgramIndex.add(userUpdatedEvent.getId(), userUpdatedEvent.getName());
+    }
+
+    @KafkaHandler
+    public void handle(UserDeletedEvent userDeletedEvent){
+        evict(userDeletedEvent.getId());
+    }
+
+    private void evict(Long id){
+        if (usersCache != null && id != null) {
+            usersCache.evict(id);
+            log.debug("User {} evicted from cache", id);
+        }
+    }
+}
@@ -3,22 +3,48 @@ package com.artemyakkonen.aston_spring_boot.hateoas;
 import com.artemyakkonen.aston_spring_boot.controller.UserController;
 import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
+/**
+ * Builds user links from a base URI resolved once per request (it depends on host, scheme and
+ * forwarded headers), so list responses do not go through linkTo/methodOn for every element.
+ */
 @Component
 public class UserDTOModelAssembler implements RepresentationModelAssembler<UserDTO, EntityModel<UserDTO>> {
+    private static final String LINKS_ATTRIBUTE = UserDTOModelAssembler.class.getName() + ".links";
 
     @Override
     public EntityModel<UserDTO> toModel(UserDTO userDTO) {
+        var links = currentLinks();
+        return EntityModel.of(userDTO,
+                Link.of(links.usersHref() + "/" + userDTO.getId(), IanaLinkRelations.SELF),
+                links.users());
+    }
 
-        EntityModel<UserDTO> userDTOModel = EntityModel.of(userDTO,
-                linkTo(methodOn(UserController.class).getUser(userDTO.getId())).withSelfRel(),
-                linkTo(methodOn(UserController.class).getAllUses(null)).withRel("users"));
+    private UserLinks currentLinks() {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return resolveLinks();
+        }
+        var links = (UserLinks) attributes.getAttribute(LINKS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (links == null) {
+            links = resolveLinks();
+            attributes.setAttribute(LINKS_ATTRIBUTE, links, RequestAttributes.SCOPE_REQUEST);
+        }
+        return links;
+    }
 
-        return userDTOModel;
+    private static UserLinks resolveLinks() {
+        var usersHref = linkTo(UserController.class).toUri().toString();
+        return new UserLinks(usersHref, Link.of(usersHref, "users"));
     }
+
+    private record UserLinks(String usersHref, Link users) {}
 }
@@ -0,0 +1,75 @@
+package com.artemyakkonen.aston_spring_boot.hateoas;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserVersionDTO;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Validators for conditional GET. A user's ETag changes with every write because the version
+ * is incremented and updatedAt is refreshed; a list ETag is a digest of the validators of its elements,
+ * so it can be checked before the page is serialized.
+ */
+public final class UserETags {
+    private UserETags() {
+    }
+
+    public static String of(UserVersionDTO user) {
+        return "\"" + user.getId() + "-" + user.getVersion() + "-" + epochMillis(user.getUpdatedAt()) + "\"";
+    }
+
+    /**
+     * @param representation media type of the response, the HAL and lean lists of the same page get different ETags
+     */
+    public static String of(String representation, List<UserDTO> users, String nextCursor) {
+        var validators = new StringBuilder(users.size() * 32)
+                .append(representation).append(';')
+                .append(nextCursor).append(';');
+        for (var user : users) {
+            validators.append(user.getId()).append('-')
+                    .append(user.getVersion()).append('-')
+                    .append(epochMillis(user.getUpdatedAt())).append(';');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(validators.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Reads the version from an If-Match value produced by {@link #of(UserVersionDTO)}.
+     *
+     * @return empty when the value is not an ETag of the user with {@code id}, for example {@code *} or a list ETag
+     */
+    public static Optional<Long> version(String eTag, Long id) {
+        var value = eTag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            return Optional.empty();
+        }
+        var parts = value.substring(1, value.length() - 1).split("-", 3);
+        if (parts.length != 3 || !parts[0].equals(String.valueOf(id))) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(parts[1]));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return updatedAt as epoch millis, -1 for rows written before updatedAt was maintained
+     */
+    public static long lastModified(UserVersionDTO user) {
+        return epochMillis(user.getUpdatedAt());
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,46 @@
+package com.artemyakkonen.aston_spring_boot.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Builder
+@AllArgsConstructor
+
+@Getter
+@Setter
+@NoArgsConstructor
+
+@ToString(includeFieldNames = true, onlyExplicitlyIncluded = true)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    @ToString.Include
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @ToString.Include
+    @Column(nullable = false)
+    private String topic;
+
+    @ToString.Include
+    @Column(name = "message_key", nullable = false)
+    private String messageKey;
+
+    @ToString.Include
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
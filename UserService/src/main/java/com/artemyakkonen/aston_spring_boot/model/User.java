@@ -3,6 +3,11 @@ package com.artemyakkonen.aston_spring_boot.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -21,13 +26,25 @@ import java.time.LocalDateTime;
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 
 @EntityListeners(AuditingEntityListener.class)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.ENTITY_CACHE_REGION)
+@NaturalIdCache(region = User.NATURAL_ID_CACHE_REGION)
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_created_at_id", columnList = "createdAt, id"),
+        @Index(name = "idx_users_name_id", columnList = "name, id"),
+        @Index(name = "idx_users_age_id", columnList = "age, id")
+})
 public class User {
+    /**
+     * Second-level cache regions, used only when the cache is enabled (app.users.second-level-cache).
+     */
+    public static final String ENTITY_CACHE_REGION = "user";
+    public static final String NATURAL_ID_CACHE_REGION = "user-natural-id";
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @ToString.Include
     @EqualsAndHashCode.Include
     private Long id;
@@ -36,6 +53,7 @@ public class User {
     private String name;
 
     @ToString.Include
+    @NaturalId(mutable = true)
     @Column(unique = true)
     private String email;
 
@@ -48,6 +66,11 @@ public class User {
     @CreatedDate
     private LocalDateTime createdAt;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public User(Long id, String name, String email, Integer age) {
         this.id = id;
         this.name = name;
@@ -0,0 +1,156 @@
+package com.artemyakkonen.aston_spring_boot.pagination;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserParamsDTO;
+import com.artemyakkonen.aston_spring_boot.exception.InvalidPagingException;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Opaque keyset cursor: base64url of {@code sortBy|direction|value|id}, where value is {@code -} for a null
+ * sort value and {@code =} followed by the value otherwise.
+ * Sort field and direction are part of the token, so a cursor cannot be replayed with a different order.
+ */
+@Component
+public class UserCursorCodec {
+    private static final String SEPARATOR = "|";
+    private static final String NULL_VALUE = "-";
+    private static final String VALUE_PREFIX = "=";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public String encode(UserParamsDTO params, UserDTO last) {
+        String value = params.getSortBy().equals("id") ? "" : encodeValue(sortValue(params.getSortBy(), last));
+        String raw = String.join(SEPARATOR,
+                params.getSortBy(), params.getSortDirection().toLowerCase(Locale.ROOT), value, last.getId().toString());
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public KeysetScrollPosition decode(UserParamsDTO params) {
+        if (params.getSortBy().equals("email")) {
+            throw new InvalidPagingException("Keyset paging is not supported for sortBy=email");
+        }
+
+        String cursor = params.getAfter();
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String raw;
+        try {
+            raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPagingException("Cursor is malformed", e);
+        }
+
+        String sortBy = params.getSortBy();
+        int first = raw.indexOf(SEPARATOR);
+        int second = raw.indexOf(SEPARATOR, first + 1);
+        int last = raw.lastIndexOf(SEPARATOR);
+        if (first < 0 || second < 0 || last <= second) {
+            throw new InvalidPagingException("Cursor is malformed");
+        }
+        if (!raw.substring(0, first).equals(sortBy)
+                || !raw.substring(first + 1, second).equalsIgnoreCase(params.getSortDirection())) {
+            throw new InvalidPagingException("Cursor does not match sortBy and sortDirection of the request");
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            if (!sortBy.equals("id")) {
+                keys.put(sortBy, decodeValue(sortBy, raw.substring(second + 1, last)));
+            }
+            keys.put("id", Long.valueOf(raw.substring(last + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidPagingException("Cursor is malformed", e);
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Users after the cursor of {@code params} in the order of {@link UserParamsDTO#toKeysetSort()}, to be combined
+     * with an initial scroll position. Spring Data's keyset predicate compares a null sort value with
+     * {@code >}/{@code <} and so never reaches the rows behind it; here nulls are handled explicitly, as larger than
+     * any value, the way PostgreSQL orders them by default (last ascending, first descending), so the index on
+     * the sort field and id still serves the order.
+     */
+    public Specification<User> after(UserParamsDTO params) {
+        var position = decode(params);
+        if (position.isInitial()) {
+            return (root, query, cb) -> cb.conjunction();
+        }
+        boolean ascending = Sort.Direction.fromString(params.getSortDirection()).isAscending();
+        var keys = position.getKeys();
+        var id = (Long) keys.get("id");
+
+        return (root, query, cb) -> {
+            Path<Long> idPath = root.get("id");
+            var afterId = ascending ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            return switch (params.getSortBy()) {
+                case "createdAt" -> after(cb, root.get("createdAt"), (LocalDateTime) keys.get("createdAt"), ascending, afterId);
+                case "name" -> after(cb, root.get("name"), (String) keys.get("name"), ascending, afterId);
+                case "age" -> after(cb, root.get("age"), (Integer) keys.get("age"), ascending, afterId);
+                default -> afterId;
+            };
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate after(CriteriaBuilder cb, Expression<T> field, T value,
+                                                                     boolean ascending, Predicate afterId) {
+        if (value == null) {
+            return ascending
+                    ? cb.and(cb.isNull(field), afterId)
+                    : cb.or(cb.isNotNull(field), cb.and(cb.isNull(field), afterId));
+        }
+        var beyond = ascending ? cb.greaterThan(field, value) : cb.lessThan(field, value);
+        var sameValue = cb.and(cb.equal(field, value), afterId);
+        return ascending ? cb.or(beyond, sameValue, cb.isNull(field)) : cb.or(beyond, sameValue);
+    }
+
+    private static String encodeValue(Object value) {
+        return value == null ? NULL_VALUE : VALUE_PREFIX + value;
+    }
+
+    private Object decodeValue(String sortBy, String value) {
+        if (value.equals(NULL_VALUE)) {
+            return null;
+        }
+        if (!value.startsWith(VALUE_PREFIX)) {
+            throw new InvalidPagingException("Cursor is malformed");
+        }
+        return parseValue(sortBy, value.substring(VALUE_PREFIX.length()));
+    }
+
+    private Object sortValue(String sortBy, UserDTO user) {
+        return switch (sortBy) {
+            case "createdAt" -> user.getCreatedAt();
+            case "name" -> user.getName();
+            case "age" -> user.getAge();
+            default -> throw new InvalidPagingException(String.format("Keyset paging is not supported for sortBy=%s", sortBy));
+        };
+    }
+
+    private Object parseValue(String sortBy, String value) {
+        return switch (sortBy) {
+            case "createdAt" -> LocalDateTime.parse(value);
+            case "name" -> value;
+            case "age" -> Integer.valueOf(value);
+            default -> throw new InvalidPagingException(String.format("Keyset paging is not supported for sortBy=%s", sortBy));
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.artemyakkonen.aston_spring_boot.repository;
+
+/**
+ * Columns returned by the DELETE … RETURNING statements, enough to build a UserDeletedEvent.
+ */
+public interface DeletedUserView {
+    Long getId();
+
+    String getEmail();
+}
@@ -0,0 +1,16 @@
+package com.artemyakkonen.aston_spring_boot.repository;
+
+import com.artemyakkonen.aston_spring_boot.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query(value = "SELECT * FROM outbox_events ORDER BY id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<OutboxEvent> findBatchForUpdate(@Param("limit") int limit);
+}
@@ -0,0 +1,77 @@
+package com.artemyakkonen.aston_spring_boot.repository;
+
+import com.artemyakkonen.aston_spring_boot.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.cache.spi.access.CachedDomainDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidates second-level cache entries of users written by native DML (updateReturning, deleteByIdReturning,
+ * deleteAllByIdReturning). Those statements are synchronized on {@link #QUERY_SPACE} rather than the users
+ * table, otherwise Hibernate would drop both User regions entirely after each of them.
+ * <p>
+ * Entries are soft-locked until the current transaction completes, like Hibernate does for its own
+ * updates: reads in the meantime go to the database and their results are not put into the cache,
+ * so a row read before the commit can not be cached after it. All methods are no-ops while the
+ * cache is disabled.
+ */
+@Component
+public class UserCacheInvalidator {
+    public static final String QUERY_SPACE = "users_dml";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public void invalidate(Long id){
+        var session = entityManager.unwrap(SessionImplementor.class);
+        var persister = persister(session);
+        if (!persister.canWriteToCache()) {
+            return;
+        }
+        var access = persister.getCacheAccessStrategy();
+        lockUntilCompletion(session, access,
+                access.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier()));
+    }
+
+    /**
+     * Invalidates the email → id entry of the natural-id cache.
+     */
+    public void invalidateEmail(String email){
+        var session = entityManager.unwrap(SessionImplementor.class);
+        var persister = persister(session);
+        if (email == null || !persister.hasNaturalIdCache()) {
+            return;
+        }
+        var access = persister.getNaturalIdCacheAccessStrategy();
+        lockUntilCompletion(session, access, access.generateCacheKey(email, persister, session));
+    }
+
+    /**
+     * Invalidates the whole natural-id region, for email changes where the previous email is unknown.
+     */
+    public void invalidateEmails(){
+        var session = entityManager.unwrap(SessionImplementor.class);
+        var persister = persister(session);
+        if (!persister.hasNaturalIdCache()) {
+            return;
+        }
+        var access = persister.getNaturalIdCacheAccessStrategy();
+        SoftLock lock = access.lockRegion();
+        access.removeAll(session);
+        session.getActionQueue().registerProcess((success, completedSession) -> access.unlockRegion(lock));
+    }
+
+    private static void lockUntilCompletion(SessionImplementor session, CachedDomainDataAccess access, Object key){
+        SoftLock lock = access.lockItem(session, key, null);
+        session.getActionQueue().registerProcess((success, completedSession) ->
+                access.unlockItem(completedSession, key, lock));
+    }
+
+    private static EntityPersister persister(SessionImplementor session){
+        return session.getFactory().getMappingMetamodel().getEntityDescriptor(User.class);
+    }
+}
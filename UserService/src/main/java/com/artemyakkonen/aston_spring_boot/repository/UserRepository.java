@@ -1,11 +1,55 @@
 package com.artemyakkonen.aston_spring_boot.repository;
 
+import com.artemyakkonen.aston_spring_boot.dto.UserVersionDTO;
 import com.artemyakkonen.aston_spring_boot.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>, UserRepositoryCustom {
+    @Transactional(readOnly = true)
     boolean existsByEmail(String email);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.artemyakkonen.aston_spring_boot.dto.UserVersionDTO(u.id, u.version, u.updatedAt) " +
+            "FROM User u WHERE u.id = :id")
+    Optional<UserVersionDTO> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IS NOT NULL")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<String> streamAllEmails();
+
+    @Query("SELECT u.id, u.name FROM User u WHERE u.name IS NOT NULL")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Object[]> streamAllNames();
+
+    @Query(value = "DELETE FROM users WHERE id = :id RETURNING id, email", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = UserCacheInvalidator.QUERY_SPACE))
+    Optional<DeletedUserView> deleteByIdReturning(@Param("id") Long id);
+
+    @Query(value = "DELETE FROM users WHERE id IN (:ids) RETURNING id, email", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = UserCacheInvalidator.QUERY_SPACE))
+    List<DeletedUserView> deleteAllByIdReturning(@Param("ids") Collection<Long> ids);
 }
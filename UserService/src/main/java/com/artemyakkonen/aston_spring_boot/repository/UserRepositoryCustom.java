@@ -0,0 +1,37 @@
+package com.artemyakkonen.aston_spring_boot.repository;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface UserRepositoryCustom {
+    Stream<User> streamAll(Specification<User> spec, Sort sort, int fetchSize);
+
+    /**
+     * Selects only the {@link UserDTO} columns through a constructor expression,
+     * no entities are loaded into the persistence context.
+     */
+    Page<UserDTO> findAllProjected(Specification<User> spec, Pageable pageable);
+
+    /**
+     * Looks the user up by email as natural id. With the second-level cache enabled both the email → id
+     * resolution and the entity come from the cache when present, no query is run.
+     */
+    Optional<User> findByNaturalId(String email);
+
+    /**
+     * Writes only the given attributes (name, email, age) in one UPDATE … RETURNING, without loading
+     * the user first. The version is incremented; when {@code expectedVersion} is given, the row is
+     * only updated if it still has that version. Cached entries are not touched, see {@link UserCacheInvalidator}.
+     *
+     * @return the updated user, empty if no row matched the id (and version)
+     */
+    Optional<UserDTO> updateReturning(Long id, Long expectedVersion, Map<String, Object> changes);
+}
@@ -0,0 +1,149 @@
+package com.artemyakkonen.aston_spring_boot.repository;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private static final Set<String> UPDATABLE_COLUMNS = Set.of("name", "email", "age");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<User> streamAll(Specification<User> spec, Sort sort, int fetchSize) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(User.class);
+        var root = query.from(User.class);
+
+        applySpecification(spec, root, query, cb);
+        query.select(root).orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public Page<UserDTO> findAllProjected(Specification<User> spec, Pageable pageable) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(UserDTO.class);
+        var root = query.from(User.class);
+
+        applySpecification(spec, root, query, cb);
+        query.select(cb.construct(UserDTO.class,
+                        root.get("id"),
+                        root.get("name"),
+                        root.get("email"),
+                        root.get("age"),
+                        root.get("createdAt"),
+                        root.get("updatedAt"),
+                        root.get("version")))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        var typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        var content = typedQuery.getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByNaturalId(String email) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(email);
+    }
+
+    @Override
+    public Optional<UserDTO> updateReturning(Long id, Long expectedVersion, Map<String, Object> changes) {
+        var sql = new StringBuilder("UPDATE users SET ");
+        changes.keySet().forEach(attribute -> sql.append(column(attribute)).append(" = :").append(attribute).append(", "));
+        sql.append("updated_at = :updatedAt, version = version + 1 WHERE id = :id");
+        if (expectedVersion != null) {
+            sql.append(" AND version = :expectedVersion");
+        }
+        sql.append(" RETURNING id, name, email, age, created_at, updated_at, version");
+
+        var query = entityManager.unwrap(Session.class)
+                .createNativeQuery(sql.toString(), Object[].class)
+                .setParameter("updatedAt", LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
+                .setParameter("id", id);
+        changes.forEach(query::setParameter);
+        if (expectedVersion != null) {
+            query.setParameter("expectedVersion", expectedVersion);
+        }
+
+        var rows = query.addSynchronizedQuerySpace(UserCacheInvalidator.QUERY_SPACE)
+                .addScalar("id", StandardBasicTypes.LONG)
+                .addScalar("name", StandardBasicTypes.STRING)
+                .addScalar("email", StandardBasicTypes.STRING)
+                .addScalar("age", StandardBasicTypes.INTEGER)
+                .addScalar("created_at", StandardBasicTypes.LOCAL_DATE_TIME)
+                .addScalar("updated_at", StandardBasicTypes.LOCAL_DATE_TIME)
+                .addScalar("version", StandardBasicTypes.LONG)
+                .getResultList();
+
+        return rows.stream().findFirst().map(row -> UserDTO.builder()
+                .id((Long) row[0])
+                .name((String) row[1])
+                .email((String) row[2])
+                .age((Integer) row[3])
+                .createdAt((LocalDateTime) row[4])
+                .updatedAt((LocalDateTime) row[5])
+                .version((Long) row[6])
+                .build());
+    }
+
+    private static String column(String attribute) {
+        if (!UPDATABLE_COLUMNS.contains(attribute)) {
+            throw new IllegalArgumentException("Attribute " + attribute + " can not be updated");
+        }
+        return attribute;
+    }
+
+    private long count(Specification<User> spec) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(Long.class);
+        var root = query.from(User.class);
+
+        applySpecification(spec, root, query, cb);
+        query.select(cb.count(root));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static void applySpecification(Specification<User> spec, Root<User> root,
+                                           CriteriaQuery<?> query, CriteriaBuilder cb) {
+        var predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
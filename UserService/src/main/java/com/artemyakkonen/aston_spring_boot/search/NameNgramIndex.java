@@ -0,0 +1,137 @@
+package com.artemyakkonen.aston_spring_boot.search;
+
+import com.artemyakkonen.aston_spring_boot.datasource.ReadYourWrites;
+import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional in-memory index of short name n-grams (1 up to max-term-length characters).
+ * Serves name terms too short to produce a trigram, which the pg_trgm index cannot help with.
+ * Postings are only candidates: stale ids left by renames and deletes are filtered out
+ * by the LIKE predicate the database still evaluates, and the index is rebuilt periodically.
+ * The rebuild reads from the primary, a lagging replica would leave recent names out until the next one.
+ */
+@Slf4j
+@Component
+public class NameNgramIndex {
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final boolean enabled;
+    private final int maxTermLength;
+    private final int maxCandidates;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile Map<String, Set<Long>> current;
+    private volatile Map<String, Set<Long>> building;
+
+    public NameNgramIndex(UserRepository userRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.users.name-search.ngram-index.enabled}") boolean enabled,
+                          @Value("${app.users.name-search.ngram-index.max-term-length}") int maxTermLength,
+                          @Value("${app.users.name-search.ngram-index.max-candidates}") int maxCandidates) {
+        this.userRepository = userRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.maxTermLength = maxTermLength;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * Returns ids of users whose name may contain the term, or empty when the index
+     * cannot answer: disabled, not built yet, term too long or too common to be worth an IN list.
+     */
+    public Optional<Set<Long>> candidates(String term){
+        var index = current;
+        if (index == null || term == null || term.isEmpty() || term.length() > maxTermLength) {
+            return Optional.empty();
+        }
+        var ids = index.get(term.toLowerCase(Locale.ROOT));
+        if (ids == null) {
+            return Optional.of(Set.of());
+        }
+        if (ids.size() > maxCandidates) {
+            return Optional.empty();
+        }
+        return Optional.of(Set.copyOf(ids));
+    }
+
+    public void add(Long id, String name){
+        if (id == null || name == null) {
+            return;
+        }
+        var index = current;
+        if (index != null) {
+            put(index, id, name);
+        }
+        var next = building;
+        if (next != null) {
+            put(next, id, name);
+        }
+    }
+
+    public boolean isReady(){
+        return current != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build(){
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.name-search.ngram-index.rebuild-interval-ms}",
+            initialDelayString = "${app.users.name-search.ngram-index.rebuild-interval-ms}")
+    public void rebuild(){
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Map<String, Set<Long>> next = new ConcurrentHashMap<>();
+            building = next;
+
+            Long loaded = ReadYourWrites.onPrimary(() -> readOnlyTransactionTemplate.execute(status -> {
+                long count = 0;
+                try (var names = userRepository.streamAllNames()) {
+                    for (var iterator = names.iterator(); iterator.hasNext(); count++) {
+                        var row = iterator.next();
+                        put(next, (Long) row[0], (String) row[1]);
+                    }
+                }
+                return count;
+            }));
+
+            current = next;
+            log.info("Name n-gram index built: {} names, {} grams, took {} ms",
+                    loaded, next.size(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.error("Failed to build name n-gram index, short terms fall back to LIKE", e);
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+    private void put(Map<String, Set<Long>> index, Long id, String name){
+        var normalized = name.toLowerCase(Locale.ROOT);
+        for (int n = 1; n <= maxTermLength; n++) {
+            for (int i = 0; i + n <= normalized.length(); i++) {
+                index.computeIfAbsent(normalized.substring(i, i + n), gram -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.artemyakkonen.aston_spring_boot.service;
+
+import com.artemyakkonen.aston_spring_boot.datasource.ReadYourWrites;
+import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory Bloom filter of registered emails. A negative answer is definite, a positive one
+ * has to be confirmed by the database. Emails are added by local writes once they commit and by
+ * user events, deletions are not removable and are dropped by the periodic rebuild.
+ * <p>
+ * With the user event listener enabled the first build waits for its partition assignment, so no
+ * event of another instance can fall between the database snapshot and the first consumed offset.
+ * The snapshot is read from the primary: rows a lagging replica has not replayed yet would become
+ * false negatives until the next rebuild.
+ */
+@Slf4j
+@Component
+public class EmailExistenceFilter {
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final boolean enabled;
+    private final boolean buildOnPartitionAssignment;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    // puts take the read lock, publishing a new filter the write lock: a put lands in the filter that stays
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    private volatile BloomFilter<CharSequence> current;
+    private BloomFilter<CharSequence> building;
+
+    public EmailExistenceFilter(UserRepository userRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.email-filter.enabled}") boolean enabled,
+                                @Value("${app.kafka.listeners.enabled:true}") boolean buildOnPartitionAssignment,
+                                @Value("${app.email-filter.expected-insertions}") long expectedInsertions,
+                                @Value("${app.email-filter.false-positive-probability}") double falsePositiveProbability) {
+        this.userRepository = userRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.buildOnPartitionAssignment = buildOnPartitionAssignment;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    public boolean mightExist(String email){
+        var filter = current;
+        return filter == null || email == null || filter.mightContain(email);
+    }
+
+    /**
+     * Inside a transaction the email is added after commit: added earlier, a rebuild snapshot taken
+     * before the commit would miss the row and the new filter would not know the email.
+     */
+    public void add(String email){
+        if (email == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(email);
+                }
+            });
+        } else {
+            put(email);
+        }
+    }
+
+    public boolean isReady(){
+        return current != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build(){
+        if (!buildOnPartitionAssignment) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Called by the user event listener once its partitions are assigned and their positions known.
+     */
+    public void partitionsAssigned(){
+        if (enabled) {
+            Thread.ofPlatform().name("email-filter-build").start(this::rebuild);
+        }
+    }
+
+    /**
+     * A rebuild requested while another one runs is run again afterwards, as its snapshot may be
+     * needed to cover events the running one started too early for.
+     */
+    @Scheduled(fixedDelayString = "${app.email-filter.rebuild-interval-ms}",
+            initialDelayString = "${app.email-filter.rebuild-interval-ms}")
+    public void rebuild(){
+        if (!enabled) {
+            return;
+        }
+        rebuildRequested.set(true);
+        while (rebuildRequested.get() && rebuilding.compareAndSet(false, true)) {
+            try {
+                rebuildRequested.set(false);
+                buildFilter();
+            } finally {
+                rebuilding.set(false);
+            }
+        }
+    }
+
+    private void buildFilter(){
+        try {
+            long started = System.currentTimeMillis();
+            long size = Math.max(expectedInsertions, userRepository.count() * 2);
+            BloomFilter<CharSequence> next = BloomFilter.create(
+                    Funnels.stringFunnel(StandardCharsets.UTF_8), size, falsePositiveProbability);
+            swap(() -> building = next);
+
+            Long loaded = ReadYourWrites.onPrimary(() -> readOnlyTransactionTemplate.execute(status -> {
+                long count = 0;
+                try (var emails = userRepository.streamAllEmails()) {
+                    for (var iterator = emails.iterator(); iterator.hasNext(); count++) {
+                        next.put(iterator.next());
+                    }
+                }
+                return count;
+            }));
+
+            swap(() -> {
+                current = next;
+                building = null;
+            });
+            log.info("Email filter built: {} emails, capacity {}, took {} ms",
+                    loaded, size, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            swap(() -> building = null);
+            log.error("Failed to build email filter, lookups fall through to the database", e);
+        }
+    }
+
+    private void put(String email){
+        swapLock.readLock().lock();
+        try {
+            var filter = current;
+            if (filter != null) {
+                filter.put(email);
+            }
+            if (building != null) {
+                building.put(email);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void swap(Runnable change){
+        swapLock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+}
@@ -1,5 +1,12 @@
 package com.artemyakkonen.aston_spring_boot.service;
 
+import com.artemyakkonen.aston_spring_boot.dto.EmailBatchItemResultDTO;
+import com.artemyakkonen.aston_spring_boot.dto.EmailMessageDTO;
+
+import java.util.List;
+
 public interface EmailService {
     void send(String email, String message);
+
+    List<EmailBatchItemResultDTO> sendAll(List<EmailMessageDTO> messages);
 }
@@ -1,25 +1,167 @@
 package com.artemyakkonen.aston_spring_boot.service;
 
+import com.artemyakkonen.aston_spring_boot.dto.EmailBatchItemResultDTO;
+import com.artemyakkonen.aston_spring_boot.dto.EmailBatchItemResultDTO.Status;
+import com.artemyakkonen.aston_spring_boot.dto.EmailMessageDTO;
 import com.artemyakkonen.aston_spring_boot.exception.UserNotFoundException;
 import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
-import lombok.AllArgsConstructor;
+import com.artemyakkonen.core.EmailRequestedEvent;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.*;
+import java.util.stream.Collectors;
+
 @Slf4j
-@AllArgsConstructor
 @Service
 public class EmailServiceImpl implements EmailService{
+    public static final String EMAIL_REQUESTED_TOPIC = "email-requested-topic";
+
     private final UserRepository userRepository;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final OutboxService outboxService;
+    private final Validator validator;
+    private final int chunkSize;
+    private final boolean secondLevelCacheEnabled;
+
+    public EmailServiceImpl(UserRepository userRepository,
+                            EmailExistenceFilter emailExistenceFilter,
+                            OutboxService outboxService,
+                            Validator validator,
+                            @Value("${app.email.batch.chunk-size}") int chunkSize,
+                            @Value("${app.users.second-level-cache.enabled}") boolean secondLevelCacheEnabled) {
+        this.userRepository = userRepository;
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.outboxService = outboxService;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.secondLevelCacheEnabled = secondLevelCacheEnabled;
+    }
 
     @Override
     public void send(String email, String message) {
 
-        if(!userRepository.existsByEmail(email)){
+        if(!emailExistenceFilter.mightExist(email)){
+            log.debug("Email {} rejected by filter", email);
             throw new UserNotFoundException(String.format("User with email %s not found", email));
         }
 
+        if(!exists(email)){
+            throw new UserNotFoundException(String.format("User with email %s not found", email));
+        }
+
+        outboxService.enqueue(EMAIL_REQUESTED_TOPIC, email, EmailRequestedEvent.builder()
+                .email(email)
+                .message(message)
+                .build());
+
+        log.info("Message to {} queued for sending", email);
+    }
+
+    /**
+     * With the second-level cache the natural id lookup is usually answered from the cache without a query.
+     * Without it, the lookup would load the whole entity, so existsByEmail is used instead.
+     */
+    private boolean exists(String email){
+        return secondLevelCacheEnabled
+                ? userRepository.findByNaturalId(email).isPresent()
+                : userRepository.existsByEmail(email);
+    }
+
+    /**
+     * Queues every message whose recipient exists. Existence is resolved with one
+     * {@code email IN (...)} query per chunk of distinct addresses; addresses rejected
+     * by the email filter never reach the query. Each chunk is stored in the outbox with one saveAll.
+     */
+    @Override
+    public List<EmailBatchItemResultDTO> sendAll(List<EmailMessageDTO> messages) {
+        log.debug("Sending {} messages in batch", messages.size());
+
+        EmailBatchItemResultDTO[] results = new EmailBatchItemResultDTO[messages.size()];
+
+        for (int from = 0; from < messages.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, messages.size());
+            List<Integer> accepted = new ArrayList<>(to - from);
+
+            for (int i = from; i < to; i++) {
+                EmailMessageDTO dto = messages.get(i);
+                String error = validate(dto);
+                if (error != null) {
+                    results[i] = result(i, dto, Status.INVALID, error);
+                } else if (!emailExistenceFilter.mightExist(dto.getEmail())) {
+                    results[i] = result(i, dto, Status.NOT_FOUND, "User with this email not found");
+                } else {
+                    accepted.add(i);
+                }
+            }
+
+            try {
+                sendChunk(messages, accepted, results);
+            } catch (Exception e) {
+                log.error("Email batch chunk [{}, {}) failed", from, to, e);
+                for (Integer index : accepted) {
+                    if (results[index] == null || results[index].getStatus() == Status.QUEUED) {
+                        results[index] = result(index, messages.get(index), Status.FAILED, "Chunk could not be queued");
+                    }
+                }
+            }
+        }
+
+        log.info("Email batch finished: {} of {} messages queued", Arrays.stream(results)
+                .filter(result -> result.getStatus() == Status.QUEUED)
+                .count(), messages.size());
+
+        return Arrays.asList(results);
+    }
+
+    private void sendChunk(List<EmailMessageDTO> messages, List<Integer> accepted, EmailBatchItemResultDTO[] results){
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        Set<String> existingEmails = new HashSet<>(userRepository.findExistingEmails(accepted.stream()
+                .map(index -> messages.get(index).getEmail())
+                .collect(Collectors.toSet())));
+
+        List<EmailRequestedEvent> events = new ArrayList<>(accepted.size());
+        for (Integer index : accepted) {
+            EmailMessageDTO dto = messages.get(index);
+            if (existingEmails.contains(dto.getEmail())) {
+                events.add(EmailRequestedEvent.builder()
+                        .email(dto.getEmail())
+                        .message(dto.getMessage())
+                        .build());
+                results[index] = result(index, dto, Status.QUEUED, null);
+            } else {
+                results[index] = result(index, dto, Status.NOT_FOUND, "User with this email not found");
+            }
+        }
+
+        outboxService.enqueueAll(EMAIL_REQUESTED_TOPIC, events, EmailRequestedEvent::getEmail);
+    }
+
+    private String validate(EmailMessageDTO dto){
+        if (dto == null) {
+            return "Item must not be null";
+        }
+        if (dto.getEmail() == null) {
+            return "email: must not be null";
+        }
+        return validator.validate(dto).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .findFirst()
+                .orElse(null);
+    }
 
-        log.info("Message to {} successfully sent", email);
+    private static EmailBatchItemResultDTO result(int index, EmailMessageDTO dto, Status status, String error){
+        return EmailBatchItemResultDTO.builder()
+                .index(index)
+                .email(dto != null ? dto.getEmail() : null)
+                .status(status)
+                .error(error)
+                .build();
     }
 }
@@ -0,0 +1,162 @@
+package com.artemyakkonen.aston_spring_boot.service;
+
+import com.artemyakkonen.aston_spring_boot.model.OutboxEvent;
+import com.artemyakkonen.aston_spring_boot.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the outbox table to Kafka in id order. Rows are locked for the duration of a batch,
+ * so concurrent relays on other instances wait instead of publishing out of order.
+ * Delivery is at-least-once: rows are deleted only after the broker acknowledged them. A batch waits
+ * for its acknowledgements at most {@code send-timeout-ms} in total, so the locks are never held longer.
+ * <p>
+ * Every send is timed from the hand-over to the producer until the broker's acknowledgement
+ * ({@code outbox.relay.send}, tagged with topic and result), and acknowledged events also record
+ * how long they waited in the outbox ({@code outbox.relay.lag}).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.outbox.relay", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, String> outboxKafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       @Qualifier("outboxKafkaTemplate") KafkaTemplate<String, String> outboxKafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.relay.batch-size}") int batchSize,
+                       @Value("${app.outbox.relay.send-timeout-ms}") long sendTimeoutMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxKafkaTemplate = outboxKafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.poll-interval-ms}",
+            initialDelayString = "${app.outbox.relay.initial-delay-ms}")
+    public void relay(){
+        int published;
+        do {
+            published = relayBatch();
+        } while (published == batchSize);
+    }
+
+    int relayBatch(){
+        Integer published = transactionTemplate.execute(status -> {
+            var batch = outboxEventRepository.findBatchForUpdate(batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            List<CompletableFuture<SendResult<String, String>>> futures = new ArrayList<>(batch.size());
+            for (OutboxEvent event : batch) {
+                futures.add(send(event));
+            }
+            awaitAcknowledgements(futures);
+
+            List<Long> sentIds = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                OutboxEvent event = batch.get(i);
+                var future = futures.get(i);
+                if (!future.isDone()) {
+                    log.error("Outbox event {} to {} not acknowledged within {} ms",
+                            event.getId(), event.getTopic(), sendTimeoutMs);
+                    break;
+                }
+                if (future.isCompletedExceptionally()) {
+                    log.error("Failed to send outbox event {} to {}: {}",
+                            event.getId(), event.getTopic(), future.exceptionNow().getMessage());
+                    break;
+                }
+                SendResult<String, String> sendResult = future.resultNow();
+                log.debug("Outbox event {} sent - Topic: {}, Partition: {}, Offset: {}",
+                        event.getId(),
+                        sendResult.getRecordMetadata().topic(),
+                        sendResult.getRecordMetadata().partition(),
+                        sendResult.getRecordMetadata().offset());
+                sentIds.add(event.getId());
+            }
+
+            if (!sentIds.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(sentIds);
+            }
+            log.info("Outbox relay published {} of {} events", sentIds.size(), batch.size());
+            return sentIds.size();
+        });
+        return published == null ? 0 : published;
+    }
+
+    /**
+     * Waits at most send-timeout-ms for the whole batch, the row locks are held meanwhile.
+     * Failed and unacknowledged sends are left to the caller.
+     */
+    private void awaitAcknowledgements(List<CompletableFuture<SendResult<String, String>>> futures){
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Outbox relay interrupted while waiting for {} events", futures.size());
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Not every outbox event of the batch was acknowledged: {}", e.getMessage());
+        }
+    }
+
+    private CompletableFuture<SendResult<String, String>> send(OutboxEvent event){
+        long start = System.nanoTime();
+        return outboxKafkaTemplate.send(toRecord(event)).whenComplete((result, ex) -> {
+            sendTimer(event.getTopic(), ex == null ? "success" : "failure")
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (ex == null) {
+                Timer.builder("outbox.relay.lag")
+                        .description("Time from writing an event to the outbox until the broker acknowledged it")
+                        .tag("topic", event.getTopic())
+                        .register(meterRegistry)
+                        .record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+            }
+        });
+    }
+
+    private Timer sendTimer(String topic, String result){
+        return Timer.builder("outbox.relay.send")
+                .description("Kafka send latency of outbox events, until acknowledged by the broker")
+                .tag("topic", topic)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private ProducerRecord<String, String> toRecord(OutboxEvent event){
+        var record = new ProducerRecord<>(event.getTopic(), event.getMessageKey(), event.getPayload());
+        record.headers().add(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME,
+                event.getEventType().getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+}
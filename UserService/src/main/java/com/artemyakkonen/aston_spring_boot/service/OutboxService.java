@@ -0,0 +1,51 @@
+package com.artemyakkonen.aston_spring_boot.service;
+
+import com.artemyakkonen.aston_spring_boot.model.OutboxEvent;
+import com.artemyakkonen.aston_spring_boot.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+@Slf4j
+@AllArgsConstructor
+@Service
+public class OutboxService {
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public void enqueue(String topic, String key, Object event){
+        outboxEventRepository.save(toOutboxEvent(topic, key, event));
+        log.debug("Event {} for key {} stored in outbox for topic {}", event.getClass().getSimpleName(), key, topic);
+    }
+
+    public <E> void enqueueAll(String topic, List<E> events, Function<E, String> keyExtractor){
+        if (events.isEmpty()) {
+            return;
+        }
+        outboxEventRepository.saveAll(events.stream()
+                .map(event -> toOutboxEvent(topic, keyExtractor.apply(event), event))
+                .toList());
+        log.debug("{} events stored in outbox for topic {}", events.size(), topic);
+    }
+
+    OutboxEvent toOutboxEvent(String topic, String key, Object event){
+        try {
+            return OutboxEvent.builder()
+                    .topic(topic)
+                    .messageKey(key)
+                    .eventType(event.getClass().getName())
+                    .payload(objectMapper.writeValueAsString(event))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(
+                    String.format("Failed to serialize %s for outbox", event.getClass().getName()), e);
+        }
+    }
+}
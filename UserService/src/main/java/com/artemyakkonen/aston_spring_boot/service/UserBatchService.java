@@ -0,0 +1,230 @@
+package com.artemyakkonen.aston_spring_boot.service;
+
+import com.artemyakkonen.aston_spring_boot.config.CacheConfig;
+import com.artemyakkonen.aston_spring_boot.dto.UserBatchItemResultDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserBatchItemResultDTO.Status;
+import com.artemyakkonen.aston_spring_boot.dto.UserBulkDeleteResultDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserCreateDTO;
+import com.artemyakkonen.aston_spring_boot.mapper.UserMapper;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.repository.DeletedUserView;
+import com.artemyakkonen.aston_spring_boot.repository.UserCacheInvalidator;
+import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.core.UserDeletedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class UserBatchService {
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final OutboxService outboxService;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache usersCache;
+    private final UserCacheInvalidator userCacheInvalidator;
+    private final int chunkSize;
+
+    public UserBatchService(UserRepository userRepository,
+                            UserMapper userMapper,
+                            OutboxService outboxService,
+                            EmailExistenceFilter emailExistenceFilter,
+                            Validator validator,
+                            EntityManager entityManager,
+                            TransactionTemplate transactionTemplate,
+                            CacheManager cacheManager,
+                            UserCacheInvalidator userCacheInvalidator,
+                            @Value("${app.users.batch.chunk-size}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.outboxService = outboxService;
+        this.emailExistenceFilter = emailExistenceFilter;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.usersCache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        this.userCacheInvalidator = userCacheInvalidator;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<UserBatchItemResultDTO> createUsers(List<UserCreateDTO> dtos){
+        log.debug("Creating {} users in batch", dtos.size());
+
+        UserBatchItemResultDTO[] results = new UserBatchItemResultDTO[dtos.size()];
+        Set<String> seenEmails = new HashSet<>();
+
+        for (int from = 0; from < dtos.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, dtos.size());
+            List<Integer> accepted = new ArrayList<>(to - from);
+
+            for (int i = from; i < to; i++) {
+                UserCreateDTO dto = dtos.get(i);
+                String error = validate(dto);
+                if (error != null) {
+                    results[i] = rejected(i, Status.INVALID, error);
+                } else if (dto.getEmail() != null && !seenEmails.add(dto.getEmail())) {
+                    results[i] = rejected(i, Status.DUPLICATE, "Email is duplicated in the batch");
+                } else {
+                    accepted.add(i);
+                }
+            }
+
+            try {
+                createChunk(dtos, accepted, results);
+            } catch (Exception e) {
+                log.error("Batch chunk [{}, {}) failed", from, to, e);
+                for (Integer index : accepted) {
+                    if (results[index] == null || results[index].getStatus() == Status.CREATED) {
+                        results[index] = rejected(index, Status.FAILED, "Chunk could not be stored");
+                    }
+                }
+            }
+        }
+
+        log.debug("Batch finished: {} of {} users created", Arrays.stream(results)
+                .filter(result -> result.getStatus() == Status.CREATED)
+                .count(), dtos.size());
+
+        return Arrays.asList(results);
+    }
+
+    private void createChunk(List<UserCreateDTO> dtos, List<Integer> accepted, UserBatchItemResultDTO[] results){
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> existingEmails = new HashSet<>(userRepository.findExistingEmails(accepted.stream()
+                    .map(index -> dtos.get(index).getEmail())
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet())));
+
+            List<Integer> indexes = new ArrayList<>(accepted.size());
+            List<User> users = new ArrayList<>(accepted.size());
+            for (Integer index : accepted) {
+                UserCreateDTO dto = dtos.get(index);
+                if (dto.getEmail() != null && existingEmails.contains(dto.getEmail())) {
+                    results[index] = rejected(index, Status.DUPLICATE, "Email already exists");
+                } else {
+                    indexes.add(index);
+                    users.add(userMapper.map(dto));
+                }
+            }
+
+            if (users.isEmpty()) {
+                return;
+            }
+
+            var savedUsers = userRepository.saveAll(users);
+
+            List<UserCreatedEvent> events = new ArrayList<>(savedUsers.size());
+            for (int i = 0; i < savedUsers.size(); i++) {
+                var userDTO = userMapper.map(savedUsers.get(i));
+                emailExistenceFilter.add(userDTO.getEmail());
+                results[indexes.get(i)] = UserBatchItemResultDTO.builder()
+                        .index(indexes.get(i))
+                        .status(Status.CREATED)
+                        .user(userDTO)
+                        .build();
+                events.add(UserCreatedEvent.builder()
+                        .id(userDTO.getId())
+                        .name(userDTO.getName())
+                        .email(userDTO.getEmail())
+                        .age(userDTO.getAge())
+                        .createdAt(userDTO.getCreatedAt())
+                        .build());
+            }
+
+            outboxService.enqueueAll("user-created-events-topic", events, event -> event.getId().toString());
+
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    public UserBulkDeleteResultDTO deleteUsers(Collection<Long> ids){
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        log.debug("Deleting {} users in batch", distinctIds.size());
+
+        List<Long> deleted = new ArrayList<>(distinctIds.size());
+        List<Long> failed = new ArrayList<>();
+
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+            try {
+                deleted.addAll(deleteChunk(chunk));
+            } catch (Exception e) {
+                log.error("Batch delete chunk [{}, {}) failed", from, from + chunk.size(), e);
+                failed.addAll(chunk);
+            }
+        }
+
+        Set<Long> processed = new HashSet<>(deleted);
+        processed.addAll(failed);
+        List<Long> notFound = distinctIds.stream().filter(id -> !processed.contains(id)).toList();
+
+        log.debug("Batch delete finished: {} deleted, {} not found, {} failed",
+                deleted.size(), notFound.size(), failed.size());
+
+        return UserBulkDeleteResultDTO.builder()
+                .deleted(deleted)
+                .notFound(notFound)
+                .failed(failed)
+                .build();
+    }
+
+    private List<Long> deleteChunk(List<Long> ids){
+        List<DeletedUserView> deletedUsers = transactionTemplate.execute(status -> {
+            ids.forEach(userCacheInvalidator::invalidate);
+            var rows = userRepository.deleteAllByIdReturning(ids);
+            rows.forEach(row -> userCacheInvalidator.invalidateEmail(row.getEmail()));
+            if (!rows.isEmpty()) {
+                outboxService.enqueueAll("user-deleted-events-topic", rows.stream()
+                        .map(row -> UserDeletedEvent.builder()
+                                .id(row.getId())
+                                .email(row.getEmail())
+                                .build())
+                        .toList(), event -> event.getId().toString());
+            }
+            return rows;
+        });
+
+        List<Long> deletedIds = deletedUsers.stream().map(DeletedUserView::getId).toList();
+        if (usersCache != null) {
+            deletedIds.forEach(usersCache::evict);
+        }
+        return deletedIds;
+    }
+
+    private String validate(UserCreateDTO dto){
+        if (dto == null) {
+            return "Item must not be null";
+        }
+        return validator.validate(dto).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .findFirst()
+                .orElse(null);
+    }
+
+    private UserBatchItemResultDTO rejected(int index, Status status, String error){
+        return UserBatchItemResultDTO.builder()
+                .index(index)
+                .status(status)
+                .error(error)
+                .build();
+    }
+}
@@ -0,0 +1,143 @@
+package com.artemyakkonen.aston_spring_boot.service;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserParamsDTO;
+import com.artemyakkonen.aston_spring_boot.mapper.UserMapper;
+import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import com.artemyakkonen.aston_spring_boot.specification.UserSpecification;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+@Slf4j
+@Service
+public class UserExportService {
+    private static final String CSV_HEADER = "id,name,email,age,createdAt";
+
+    private final UserRepository userRepository;
+    private final UserSpecification userSpecification;
+    private final UserMapper userMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter ndjsonWriter;
+    private final int fetchSize;
+
+    public UserExportService(UserRepository userRepository,
+                             UserSpecification userSpecification,
+                             UserMapper userMapper,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${app.users.export.fetch-size}") int fetchSize) {
+        this.userRepository = userRepository;
+        this.userSpecification = userSpecification;
+        this.userMapper = userMapper;
+        this.entityManager = entityManager;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.ndjsonWriter = objectMapper.writerFor(UserDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        this.fetchSize = fetchSize;
+    }
+
+    public void export(UserParamsDTO params, Format format, OutputStream outputStream){
+        log.debug("Exporting users as {} with params: {}", format, params);
+
+        Long exported = readOnlyTransactionTemplate.execute(status -> {
+            try {
+                return switch (format) {
+                    case NDJSON -> writeNdjson(params, outputStream);
+                    case CSV -> writeCsv(params, outputStream);
+                };
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        log.info("Exported {} users as {}", exported, format);
+    }
+
+    private long writeNdjson(UserParamsDTO params, OutputStream outputStream) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+             var users = userRepository.streamAll(userSpecification.build(params), Sort.by("id"), fetchSize)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            for (var iterator = users.iterator(); iterator.hasNext(); count++) {
+                var user = iterator.next();
+                ndjsonWriter.writeValue(generator, userMapper.map(user));
+                entityManager.detach(user);
+            }
+            if (count > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        outputStream.flush();
+        return count;
+    }
+
+    private long writeCsv(UserParamsDTO params, OutputStream outputStream) throws IOException {
+        long count = 0;
+        var writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        try (var users = userRepository.streamAll(userSpecification.build(params), Sort.by("id"), fetchSize)) {
+            for (var iterator = users.iterator(); iterator.hasNext(); count++) {
+                var user = iterator.next();
+                var dto = userMapper.map(user);
+                writer.write(String.valueOf(dto.getId()));
+                writer.write(',');
+                writer.write(csv(dto.getName()));
+                writer.write(',');
+                writer.write(csv(dto.getEmail()));
+                writer.write(',');
+                writer.write(dto.getAge() == null ? "" : dto.getAge().toString());
+                writer.write(',');
+                writer.write(dto.getCreatedAt() == null ? "" : dto.getCreatedAt().toString());
+                writer.write('\n');
+                entityManager.detach(user);
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private String csv(String value){
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+    }
+}
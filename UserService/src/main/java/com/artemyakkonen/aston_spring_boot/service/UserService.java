@@ -1,22 +1,38 @@
 package com.artemyakkonen.aston_spring_boot.service;
 
+import com.artemyakkonen.aston_spring_boot.config.CacheConfig;
 import com.artemyakkonen.aston_spring_boot.dto.UserCreateDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserParamsDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserSliceDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserUpdateDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserVersionDTO;
 import com.artemyakkonen.aston_spring_boot.exception.UserNotFoundException;
+import com.artemyakkonen.aston_spring_boot.exception.VersionRequiredException;
 import com.artemyakkonen.aston_spring_boot.mapper.UserMapper;
+import com.artemyakkonen.aston_spring_boot.pagination.UserCursorCodec;
+import com.artemyakkonen.aston_spring_boot.repository.UserCacheInvalidator;
 import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import com.artemyakkonen.aston_spring_boot.search.NameNgramIndex;
 import com.artemyakkonen.aston_spring_boot.specification.UserSpecification;
 import com.artemyakkonen.core.UserCreatedEvent;
 import com.artemyakkonen.core.UserDeletedEvent;
-import jakarta.transaction.Transactional;
+import com.artemyakkonen.core.UserUpdatedEvent;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @AllArgsConstructor
@@ -26,8 +42,15 @@ public class UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final UserSpecification userSpecification;
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxService outboxService;
+    private final UserCursorCodec userCursorCodec;
+    private final EmailExistenceFilter emailExistenceFilter;
+    private final NameNgramIndex nameNgramIndex;
+    private final CacheManager cacheManager;
+    private final UserCacheInvalidator userCacheInvalidator;
 
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
+    @Transactional(readOnly = true)
     public UserDTO findUser(Long id){
         try {
             var user = userRepository.findById(id)
@@ -41,6 +64,20 @@ public class UserService {
         }
     }
 
+    /**
+     * Version of the user for conditional requests: taken from the cached DTO when present,
+     * otherwise read with a query selecting only id, version and updatedAt.
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserVersionDTO> findUserVersion(Long id){
+        var cache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        var cachedUser = cache != null ? cache.get(id, UserDTO.class) : null;
+        if (cachedUser != null) {
+            return Optional.of(UserVersionDTO.of(cachedUser));
+        }
+        return userRepository.findVersionById(id);
+    }
+
     public UserDTO createUser(UserCreateDTO userDTO){
         log.debug("Creating user with email: {}", userDTO.getEmail());
         try {
@@ -48,6 +85,8 @@ public class UserService {
             var savedUser = userRepository.save(user);
 
             log.debug("User created successfully: ID={}, email={}", savedUser.getId(), savedUser.getEmail());
+            emailExistenceFilter.add(savedUser.getEmail());
+            nameNgramIndex.add(savedUser.getId(), savedUser.getName());
 
             var result = userMapper.map(savedUser);
 
@@ -59,19 +98,7 @@ public class UserService {
                     .createdAt(result.getCreatedAt())
                     .build();
 
-            kafkaTemplate.send("user-created-events-topic", result.getId().toString(), userCreatedEvent)
-                    .whenComplete((sendResult, throwable) -> {
-                        if (throwable != null) {
-                            log.error("Failed to send event for user {}: {}",
-                                    result.getId(), throwable.getMessage());
-                        } else {
-                            log.info("User {} event sent - Topic: {}, Partition: {}, Offset: {}",
-                                    result.getId(),
-                                    sendResult.getRecordMetadata().topic(),
-                                    sendResult.getRecordMetadata().partition(),
-                                    sendResult.getRecordMetadata().offset());
-                        }
-                    });
+            outboxService.enqueue("user-created-events-topic", result.getId().toString(), userCreatedEvent);
 
             return result;
         }
@@ -81,34 +108,22 @@ public class UserService {
         }
     }
 
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
     public void deleteUser(Long id){
         log.debug("Deleting user with id: {}", id);
         try {
-            var user = userRepository.findById(id)
+            userCacheInvalidator.invalidate(id);
+            var deletedUser = userRepository.deleteByIdReturning(id)
                     .orElseThrow(() -> new UserNotFoundException(String.format("User with id %d not found", id)));
+            userCacheInvalidator.invalidateEmail(deletedUser.getEmail());
+            log.debug("User deleted successfully: ID={}", id);
 
             UserDeletedEvent userDeletedEvent = UserDeletedEvent.builder()
-                    .id(user.getId())
-                    .email(user.getEmail())
+                    .id(deletedUser.getId())
+                    .email(deletedUser.getEmail())
                     .build();
 
-            userRepository.deleteById(id);
-            log.debug("User deleted successfully: ID={}", id);
-
-            kafkaTemplate.send("user-deleted-events-topic", user.getId().toString(), userDeletedEvent)
-                    .whenComplete((sendResult, throwable) -> {
-                        if (throwable != null) {
-                            log.error("Failed to send deletion event for user {}: {}",
-                                    user.getId(), throwable.getMessage());
-                        } else {
-                            log.info("User {} deletion event sent - Topic: {}, Partition: {}, Offset: {}",
-                                    user.getId(),
-                                    sendResult.getRecordMetadata().topic(),
-                                    sendResult.getRecordMetadata().partition(),
-                                    sendResult.getRecordMetadata().offset());
-                        }
-                    });
-
+            outboxService.enqueue("user-deleted-events-topic", deletedUser.getId().toString(), userDeletedEvent);
         } catch (UserNotFoundException e) {
             log.warn("User with id {} not found", id);
             throw e;
@@ -118,27 +133,65 @@ public class UserService {
         }
     }
 
+    @CacheEvict(cacheNames = CacheConfig.USERS_CACHE, key = "#id")
+    /**
+     * Applies the fields present in {@code dto} if the user is still at {@code dto.version}. An update
+     * without fields changes nothing, not even the version, and returns the user as it is.
+     *
+     * @throws VersionRequiredException when the version is missing
+     * @throws OptimisticLockingFailureException when the user was changed after that version
+     */
     public UserDTO updateUser(Long id, UserUpdateDTO dto){
         log.debug("Updating user with id: {}", id);
-        try {
-            var user = userRepository.findById(id)
-                    .orElseThrow(() -> new UserNotFoundException(String.format("User with id %d not found", id)));
-            userMapper.update(dto, user);
-            var updatedUser = userRepository.save(user);
-            return userMapper.map(updatedUser);
+        if (dto.getVersion() == null) {
+            throw new VersionRequiredException(String.format(
+                    "Update of user with id %d requires the version it is based on, in the body or If-Match", id));
         }
-        catch (Exception e){
-            throw e;
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfPresent(changes, "name", dto.getName());
+        putIfPresent(changes, "email", dto.getEmail());
+        putIfPresent(changes, "age", dto.getAge());
+
+        if (changes.isEmpty()) {
+            var current = findUser(id);
+            if (!dto.getVersion().equals(current.getVersion())) {
+                throw updateFailure(id, dto.getVersion());
+            }
+            log.debug("Update of user {} has no fields, nothing changed", id);
+            return current;
+        }
+
+        userCacheInvalidator.invalidate(id);
+        if (changes.containsKey("email")) {
+            userCacheInvalidator.invalidateEmails();
         }
+        var result = userRepository.updateReturning(id, dto.getVersion(), changes)
+                .orElseThrow(() -> updateFailure(id, dto.getVersion()));
+        emailExistenceFilter.add(result.getEmail());
+        nameNgramIndex.add(result.getId(), result.getName());
+        log.debug("User updated successfully: ID={}, version={}", id, result.getVersion());
+
+        UserUpdatedEvent userUpdatedEvent = UserUpdatedEvent.builder()
+                .id(result.getId())
+                .name(result.getName())
+                .email(result.getEmail())
+                .age(result.getAge())
+                .build();
+
+        outboxService.enqueue("user-updated-events-topic", result.getId().toString(), userUpdatedEvent);
+
+        return result;
     }
 
+    @Transactional(readOnly = true)
     public List<UserDTO> findAllUsers(UserParamsDTO params){
         log.debug("Finding users with params: {}", params);
 
         try {
             var spec = userSpecification.build(params);
             var pageable = params.toPageable();
-            var usersPage = userRepository.findAll(spec, pageable);
+            var usersPage = userRepository.findAllProjected(spec, pageable);
             var users = usersPage.getContent();
 
             if (users.isEmpty()) {
@@ -149,11 +202,56 @@ public class UserService {
                         usersPage.getTotalPages());
             }
 
-            return userMapper.fromUsers(users);
+            return users;
 
         } catch (Exception e) {
             log.error("Failed to find users with params: {}", params, e);
             throw e;
         }
     }
+
+    @Transactional(readOnly = true)
+    public UserSliceDTO scrollUsers(UserParamsDTO params){
+        log.debug("Scrolling users with params: {}", params);
+
+        try {
+            var spec = userCursorCodec.after(params).and(userSpecification.build(params));
+            var window = userRepository.findBy(spec, query -> query
+                    .sortBy(params.toKeysetSort())
+                    .limit(params.getSize())
+                    .scroll(ScrollPosition.keyset()));
+
+            var users = userMapper.fromUsers(window.getContent());
+            String nextCursor = window.hasNext() && !users.isEmpty()
+                    ? userCursorCodec.encode(params, users.get(users.size() - 1))
+                    : null;
+
+            log.debug("Found {} users, has next: {}", users.size(), nextCursor != null);
+
+            return UserSliceDTO.builder()
+                    .users(users)
+                    .nextCursor(nextCursor)
+                    .build();
+
+        } catch (Exception e) {
+            log.error("Failed to scroll users with params: {}", params, e);
+            throw e;
+        }
+    }
+
+    private RuntimeException updateFailure(Long id, Long expectedVersion){
+        if (expectedVersion != null && userRepository.existsById(id)) {
+            log.info("User with id {} was modified after version {}", id, expectedVersion);
+            return new OptimisticLockingFailureException(
+                    String.format("User with id %d was modified concurrently, expected version %d", id, expectedVersion));
+        }
+        log.info("User with id {} not found", id);
+        return new UserNotFoundException(String.format("User with id %d not found", id));
+    }
+
+    private static <T> void putIfPresent(Map<String, Object> changes, String attribute, JsonNullable<T> value){
+        if (value != null && value.isPresent()) {
+            changes.put(attribute, value.get());
+        }
+    }
 }
@@ -2,13 +2,21 @@ package com.artemyakkonen.aston_spring_boot.specification;
 
 import com.artemyakkonen.aston_spring_boot.dto.UserParamsDTO;
 import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.search.NameNgramIndex;
+import lombok.AllArgsConstructor;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 
+@AllArgsConstructor
 @Component
 public class UserSpecification {
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final NameNgramIndex nameNgramIndex;
+
     public Specification<User> build(UserParamsDTO params) {
         return withCreatedAtGt(params.getCreatedAtGt())
                 .and(withCreatedAtLt(params.getCreatedAtLt()))
@@ -39,9 +47,29 @@ public class UserSpecification {
     }
 
 
+    /**
+     * Matches lower(name) LIKE '%term%', which the pg_trgm GIN index on lower(name) serves for
+     * terms of three or more characters. Shorter terms are narrowed by the in-memory n-gram index
+     * when it is enabled; the LIKE stays in place as the recheck.
+     */
     private Specification<User> withNameCont(String name){
-        return (root, query, cb)
-                -> name == null ? cb.conjunction() :
-                cb.like(cb.lower(root.get("name")), "%" + name.trim().toLowerCase() + "%");
+        if (name == null) {
+            return (root, query, cb) -> cb.conjunction();
+        }
+        var term = name.trim().toLowerCase(Locale.ROOT);
+        var candidates = nameNgramIndex.candidates(term);
+
+        return (root, query, cb) -> {
+            var like = cb.like(cb.lower(root.get("name")), "%" + escapeLike(term) + "%", LIKE_ESCAPE);
+            return candidates
+                    .map(ids -> ids.isEmpty() ? cb.disjunction() : cb.and(root.get("id").in(ids), like))
+                    .orElse(like);
+        };
+    }
+
+    private static String escapeLike(String term){
+        return term.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
     }
 }
\ No newline at end of file
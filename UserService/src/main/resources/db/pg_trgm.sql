@@ -0,0 +1,5 @@
+-- Not part of spring.sql.init: run once per database by a role with the CREATE privilege on it
+-- (pg_trgm is a trusted extension since PostgreSQL 13, older versions need a superuser), e.g.
+-- psql -U postgres -d postgres -f pg_trgm.sql. docker-compose.yml mounts it into docker-entrypoint-initdb.d,
+-- so a freshly created local database already has it.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
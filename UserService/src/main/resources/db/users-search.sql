@@ -0,0 +1,12 @@
+-- Runs after Hibernate has created/updated the schema (spring.jpa.defer-datasource-initialization).
+-- Every statement is idempotent, the script is applied on each start.
+-- The pg_trgm extension is installed once with db/pg_trgm.sql; without it the index is skipped
+-- and name search falls back to a sequential scan.
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = ''pg_trgm'') THEN
+        CREATE INDEX IF NOT EXISTS idx_users_name_trgm ON users USING gin (lower(name) gin_trgm_ops);
+    ELSE
+        RAISE WARNING ''pg_trgm is not installed, run db/pg_trgm.sql to index name search'';
+    END IF;
+END';
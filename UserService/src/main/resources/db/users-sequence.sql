@@ -0,0 +1,5 @@
+-- Runs after Hibernate has created/updated the schema (spring.jpa.defer-datasource-initialization).
+-- Tables created while users.id was an identity column have rows the new users_seq knows nothing about:
+-- move the sequence past the largest id. It only moves forward, so a restart next to running instances
+-- does not hand out ids from blocks they already allocated.
+SELECT setval('users_seq', GREATEST((SELECT COALESCE(max(id), 0) FROM users), (SELECT last_value FROM users_seq), 1));
@@ -0,0 +1,158 @@
+package com.artemyakkonen.aston_spring_boot.integration;
+
+import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives {@code GET /api/users} with a fixed number of concurrent connections and reports
+ * throughput and latency percentiles for the thread mode of the subclass. Run both modes with
+ * {@code mvn test -Dtest='*ThreadsBenchmarkTest' -Dbenchmark.connections=2000}. JUnit does not inherit
+ * conditions, so every subclass is annotated with {@code @EnabledIfSystemProperty} itself.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.hikari.maximum-pool-size=50",
+        "server.tomcat.max-connections=10000",
+        "app.email-filter.enabled=false"
+})
+@Testcontainers
+@ActiveProfiles("test")
+abstract class ThreadModeBenchmarkSupport {
+    private static final int USERS = 10_000;
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration DURATION = Duration.ofSeconds(30);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    protected abstract String mode();
+
+    @BeforeEach
+    void seed() {
+        if (userRepository.count() == 0) {
+            userRepository.saveAll(IntStream.range(0, USERS)
+                    .mapToObj(i -> User.builder().name("User " + i).email("user" + i + "@example.com").age(18 + i % 60).build())
+                    .toList());
+        }
+    }
+
+    @Test
+    void measureThroughputAndLatency() throws Exception {
+        int connections = Integer.getInteger("benchmark.connections");
+
+        run(connections, WARMUP);
+        var result = run(connections, DURATION);
+
+        log.info("{} threads, {} connections: {} req/s, p50 {} ms, p99 {} ms, max {} ms, errors {}",
+                mode(), connections, result.throughput(), result.percentile(50), result.percentile(99),
+                result.percentile(100), result.errors());
+        assertThat(result.latencies()).isNotEmpty();
+    }
+
+    private Result run(int connections, Duration duration) throws InterruptedException {
+        var client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        var errors = new AtomicLong();
+        var latencies = new ArrayList<long[]>();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        try (var workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = IntStream.range(0, connections)
+                    .mapToObj(worker -> workers.submit(() -> {
+                        var samples = new long[1024];
+                        int count = 0;
+                        while (System.nanoTime() < deadline) {
+                            var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                                            + "/api/users?size=20&ageGt=" + (18 + worker % 60)))
+                                    .timeout(Duration.ofSeconds(30))
+                                    .build();
+                            long started = System.nanoTime();
+                            try {
+                                var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                                if (response.statusCode() != 200) {
+                                    errors.incrementAndGet();
+                                    continue;
+                                }
+                            } catch (Exception e) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                            if (count == samples.length) {
+                                samples = Arrays.copyOf(samples, count * 2);
+                            }
+                            samples[count++] = System.nanoTime() - started;
+                        }
+                        return Arrays.copyOf(samples, count);
+                    }))
+                    .toList();
+            for (var future : futures) {
+                try {
+                    latencies.add(future.get());
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                }
+            }
+        }
+
+        var all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(all, errors.get(), duration);
+    }
+
+    private record Result(long[] latencies, long errors, Duration duration) {
+        long throughput() {
+            return latencies.length / Math.max(1, duration.toSeconds());
+        }
+
+        long percentile(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1_000_000;
+        }
+    }
+}
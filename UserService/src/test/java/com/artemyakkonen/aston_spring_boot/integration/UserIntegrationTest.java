@@ -125,6 +125,7 @@ class UserIntegrationTest {
         UserUpdateDTO updateDTO = UserUpdateDTO.builder()
                 .name(org.openapitools.jackson.nullable.JsonNullable.of("Jane Updated"))
                 .age(org.openapitools.jackson.nullable.JsonNullable.of(31))
+                .version(userRepository.findById(userId).orElseThrow().getVersion())
                 .build();
 
         mockMvc.perform(put("/api/users/{id}", userId)
@@ -221,6 +222,7 @@ class UserIntegrationTest {
         UserUpdateDTO invalidUpdateDTO = UserUpdateDTO.builder()
                 .name(org.openapitools.jackson.nullable.JsonNullable.of(""))
                 .age(org.openapitools.jackson.nullable.JsonNullable.of(200))
+                .version(testUser.getVersion())
                 .build();
 
         mockMvc.perform(put("/api/users/{id}", testUser.getId())
@@ -245,6 +247,7 @@ class UserIntegrationTest {
 
         UserUpdateDTO updateDTO = UserUpdateDTO.builder()
                 .name(org.openapitools.jackson.nullable.JsonNullable.of("Updated Name"))
+                .version(0L)
                 .build();
 
         mockMvc.perform(put("/api/users/{id}", nonExistentId)
@@ -285,6 +288,7 @@ class UserIntegrationTest {
 
         UserUpdateDTO partialUpdateDTO = UserUpdateDTO.builder()
                 .name(org.openapitools.jackson.nullable.JsonNullable.of("Updated Name"))
+                .version(testUser.getVersion())
                 .build();
 
         mockMvc.perform(put("/api/users/{id}", testUser.getId())
@@ -298,6 +302,7 @@ class UserIntegrationTest {
 
         UserUpdateDTO ageUpdateDTO = UserUpdateDTO.builder()
                 .age(org.openapitools.jackson.nullable.JsonNullable.of(30))
+                .version(testUser.getVersion() + 1)
                 .build();
 
         mockMvc.perform(put("/api/users/{id}", testUser.getId())
@@ -0,0 +1,15 @@
+package com.artemyakkonen.aston_spring_boot.integration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.context.TestPropertySource;
+
+@DisplayName("Virtual threads benchmark")
+@EnabledIfSystemProperty(named = "benchmark.connections", matches = "\\d+")
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadsBenchmarkTest extends ThreadModeBenchmarkSupport {
+    @Override
+    protected String mode() {
+        return "virtual";
+    }
+}
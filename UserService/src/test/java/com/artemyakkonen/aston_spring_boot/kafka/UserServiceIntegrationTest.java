@@ -3,7 +3,10 @@ package com.artemyakkonen.aston_spring_boot.kafka;
 import com.artemyakkonen.aston_spring_boot.dto.UserCreateDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
 import com.artemyakkonen.aston_spring_boot.mapper.UserMapper;
+import com.artemyakkonen.aston_spring_boot.model.OutboxEvent;
 import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.repository.OutboxEventRepository;
+import com.artemyakkonen.aston_spring_boot.repository.DeletedUserView;
 import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
 import com.artemyakkonen.aston_spring_boot.service.UserService;
 import com.artemyakkonen.aston_spring_boot.specification.UserSpecification;
@@ -31,14 +34,20 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.when;
 
@@ -61,6 +70,11 @@ public class UserServiceIntegrationTest {
     @MockitoBean
     private UserSpecification userSpecification;
 
+    @MockitoBean
+    private OutboxEventRepository outboxEventRepository;
+
+    private final ConcurrentLinkedQueue<OutboxEvent> pendingOutboxEvents = new ConcurrentLinkedQueue<>();
+
     private UserCreateDTO userCreateDTO;
     private User user;
     private UserDTO userDTO;
@@ -124,7 +138,23 @@ public class UserServiceIntegrationTest {
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        reset(userMapper, userRepository);
+        reset(userMapper, userRepository, outboxEventRepository);
+        pendingOutboxEvents.clear();
+
+        // Outbox: сохраненные события отдаются relay при следующем опросе
+        when(outboxEventRepository.save(any(OutboxEvent.class))).thenAnswer(invocation -> {
+            OutboxEvent event = invocation.getArgument(0);
+            pendingOutboxEvents.add(event);
+            return event;
+        });
+        when(outboxEventRepository.findBatchForUpdate(anyInt())).thenAnswer(invocation -> {
+            List<OutboxEvent> batch = new ArrayList<>();
+            OutboxEvent event;
+            while ((event = pendingOutboxEvents.poll()) != null) {
+                batch.add(event);
+            }
+            return batch;
+        });
 
         when(userMapper.map(userCreateDTO)).thenReturn(user);
         when(userRepository.save(user)).thenReturn(user);
@@ -141,7 +171,7 @@ public class UserServiceIntegrationTest {
         userService.createUser(userCreateDTO);
 
         // Assert
-        ConsumerRecord<String, UserCreatedEvent> message = createdEventsRecords.poll(3000, TimeUnit.MILLISECONDS);
+        ConsumerRecord<String, UserCreatedEvent> message = createdEventsRecords.poll(5000, TimeUnit.MILLISECONDS);
         assertNotNull(message);
         assertNotNull(message.key());
         UserCreatedEvent userCreatedEvent = message.value();
@@ -154,13 +184,16 @@ public class UserServiceIntegrationTest {
     void testDeleteUser_whenUserExists_successfullySendsDeleteEvent() throws InterruptedException {
         // Arrange
         Long userId = 1L;
-        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        DeletedUserView deletedUser = mock(DeletedUserView.class);
+        when(deletedUser.getId()).thenReturn(userId);
+        when(deletedUser.getEmail()).thenReturn(user.getEmail());
+        when(userRepository.deleteByIdReturning(userId)).thenReturn(Optional.of(deletedUser));
 
         // Act
         userService.deleteUser(userId);
 
         // Assert
-        ConsumerRecord<String, UserDeletedEvent> message = deletedEventsRecords.poll(3000, TimeUnit.MILLISECONDS);
+        ConsumerRecord<String, UserDeletedEvent> message = deletedEventsRecords.poll(5000, TimeUnit.MILLISECONDS);
         assertNotNull(message);
         assertEquals(userId.toString(), message.key());
         UserDeletedEvent userDeletedEvent = message.value();
@@ -0,0 +1,148 @@
+package com.artemyakkonen.aston_spring_boot.repository;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserParamsDTO;
+import com.artemyakkonen.aston_spring_boot.search.NameNgramIndex;
+import com.artemyakkonen.aston_spring_boot.specification.UserSpecification;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares name search with and without the pg_trgm index, and short terms through the
+ * in-memory n-gram index. Not part of the regular build, run with
+ * {@code mvn test -Dtest=UserNameSearchBenchmarkTest -Dbenchmark.rows=10000000}.
+ */
+@Slf4j
+@DataJpaTest
+@Testcontainers
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark.rows", matches = "\\d+")
+@DisplayName("User name search benchmark")
+class UserNameSearchBenchmarkTest {
+    private static final int ITERATIONS = 20;
+    private static final List<String> LONG_TERMS = List.of("user 4242", "son user 77", "petrov user 123");
+    private static final List<String> SHORT_TERMS = List.of("zq", "q7");
+    private static final long NGRAM_INDEX_MAX_ROWS = 1_000_000;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test")
+            .withInitScript("db/pg_trgm.sql");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void populate() {
+        long rows = Long.getLong("benchmark.rows");
+        log.info("Populating {} users", rows);
+        jdbcTemplate.update("""
+                INSERT INTO users (id, name, email, age, created_at, updated_at)
+                SELECT nextval('users_seq'),
+                       (ARRAY['John','Jane','Bob','Alice','Maria','Ivan'])[1 + g % 6] || ' ' ||
+                       (ARRAY['Doe','Smith','Johnson','Petrov','Ivanova'])[1 + g % 5] || ' user ' || g ||
+                       CASE WHEN g % 100000 = 0 THEN ' zq' ELSE '' END,
+                       'user' || g || '@example.com',
+                       18 + g % 60,
+                       now() - g * interval '1 second',
+                       now()
+                FROM generate_series(1, ?) g
+                """, rows);
+        jdbcTemplate.execute("ANALYZE users");
+    }
+
+    @Test
+    @DisplayName("LIKE with and without the trigram index")
+    void compareTrigramIndex() {
+        var specification = new UserSpecification(disabledIndex());
+
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_users_name_trgm");
+        long seqScan = measure(() -> search(specification, LONG_TERMS));
+
+        jdbcTemplate.execute("CREATE INDEX idx_users_name_trgm ON users USING gin (lower(name) gin_trgm_ops)");
+        jdbcTemplate.execute("ANALYZE users");
+        long trigram = measure(() -> search(specification, LONG_TERMS));
+
+        log.info("Name search, {} terms x {} iterations: seq scan {} ms, trigram {} ms",
+                LONG_TERMS.size(), ITERATIONS, seqScan, trigram);
+        assertThat(trigram).isLessThan(seqScan);
+    }
+
+    @Test
+    @DisplayName("Short terms through LIKE and through the in-memory n-gram index")
+    void compareNgramIndex() {
+        assumeTrue(Long.getLong("benchmark.rows") <= NGRAM_INDEX_MAX_ROWS,
+                "n-gram index holds every short gram of every name in heap, skipped above " + NGRAM_INDEX_MAX_ROWS + " rows");
+
+        var index = new NameNgramIndex(userRepository, transactionManager, true, 2, 10_000);
+        index.build();
+
+        long like = measure(() -> search(new UserSpecification(disabledIndex()), SHORT_TERMS));
+        long ngram = measure(() -> search(new UserSpecification(index), SHORT_TERMS));
+
+        log.info("Short name search, {} terms x {} iterations: LIKE {} ms, n-gram index {} ms",
+                SHORT_TERMS.size(), ITERATIONS, like, ngram);
+    }
+
+    private long search(UserSpecification specification, List<String> terms) {
+        long found = 0;
+        for (String term : terms) {
+            var params = new UserParamsDTO();
+            params.setName(term);
+            found += userRepository.findAll(specification.build(params), PageRequest.of(0, 20)).getNumberOfElements();
+        }
+        return found;
+    }
+
+    private long measure(Supplier<Long> search) {
+        search.get();
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            search.get();
+        }
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private NameNgramIndex disabledIndex() {
+        return new NameNgramIndex(userRepository, transactionManager, false, 2, 0);
+    }
+}
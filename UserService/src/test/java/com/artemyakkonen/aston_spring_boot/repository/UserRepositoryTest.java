@@ -1,6 +1,8 @@
 package com.artemyakkonen.aston_spring_boot.repository;
 
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
 import com.artemyakkonen.aston_spring_boot.model.User;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -243,6 +245,23 @@ class UserRepositoryTest {
     }
 
 
+    @Test
+    @DisplayName("Should project users into DTOs with specification and pagination")
+    void shouldFindProjectedUsersBySpecificationWithPagination() {
+        Specification<User> spec = (root, query, cb) ->
+                cb.like(cb.lower(root.get("name")), "%j%");
+
+        Page<UserDTO> userPage = userRepository.findAllProjected(spec, PageRequest.of(0, 2, Sort.by("name")));
+
+        assertThat(userPage.getTotalElements()).isEqualTo(3);
+        assertThat(userPage.getContent()).extracting(UserDTO::getName)
+                .containsExactly("Bob Johnson", "Jane Smith");
+        assertThat(userPage.getContent()).extracting(UserDTO::getEmail)
+                .containsExactly("bob.johnson@example.com", "jane.smith@example.com");
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+
     @Test
     @DisplayName("Should find users by name (case insensitive)")
     void shouldFindUsersByNameCaseInsensitive() {
@@ -0,0 +1,136 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import com.artemyakkonen.aston_spring_boot.service.EmailExistenceFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailExistenceFilter Unit Tests")
+class EmailExistenceFilterTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private EmailExistenceFilter emailExistenceFilter;
+
+    @BeforeEach
+    void setUp() {
+        emailExistenceFilter = new EmailExistenceFilter(userRepository, transactionManager, true, false, 1000, 0.001);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @Test
+    @DisplayName("Should let every email through until the filter is built")
+    void shouldPassThroughBeforeBuild() {
+        assertThat(emailExistenceFilter.isReady()).isFalse();
+        assertThat(emailExistenceFilter.mightExist("unknown@example.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject unknown emails after build")
+    void shouldRejectUnknownEmails() {
+        when(userRepository.count()).thenReturn(2L);
+        when(userRepository.streamAllEmails()).thenReturn(Stream.of("john@example.com", "jane@example.com"));
+
+        emailExistenceFilter.build();
+
+        assertThat(emailExistenceFilter.isReady()).isTrue();
+        assertThat(emailExistenceFilter.mightExist("john@example.com")).isTrue();
+        assertThat(emailExistenceFilter.mightExist("jane@example.com")).isTrue();
+        assertThat(emailExistenceFilter.mightExist("unknown@example.com")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should accept emails added after build")
+    void shouldAcceptAddedEmails() {
+        when(userRepository.streamAllEmails()).thenReturn(Stream.empty());
+        emailExistenceFilter.build();
+
+        emailExistenceFilter.add("new@example.com");
+
+        assertThat(emailExistenceFilter.mightExist("new@example.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should stay pass-through when disabled")
+    void shouldNotBuildWhenDisabled() {
+        var disabled = new EmailExistenceFilter(userRepository, transactionManager, false, false, 1000, 0.001);
+
+        disabled.build();
+
+        assertThat(disabled.isReady()).isFalse();
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Should add an email written in a transaction only after commit")
+    void shouldAddAfterCommit() {
+        when(userRepository.streamAllEmails()).thenReturn(Stream.empty());
+        emailExistenceFilter.build();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            emailExistenceFilter.add("new@example.com");
+            assertThat(emailExistenceFilter.mightExist("new@example.com")).isFalse();
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(emailExistenceFilter.mightExist("new@example.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep emails added while the filter is rebuilt")
+    void shouldKeepEmailsAddedDuringRebuild() {
+        when(userRepository.streamAllEmails()).thenReturn(Stream.of("john@example.com")
+                .peek(email -> emailExistenceFilter.add("during@example.com")));
+
+        emailExistenceFilter.build();
+
+        assertThat(emailExistenceFilter.mightExist("john@example.com")).isTrue();
+        assertThat(emailExistenceFilter.mightExist("during@example.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should rebuild again when a rebuild is requested during a rebuild")
+    void shouldRepeatRebuildRequestedDuringRebuild() {
+        when(userRepository.streamAllEmails())
+                .thenReturn(Stream.of("john@example.com").peek(email -> emailExistenceFilter.rebuild()))
+                .thenReturn(Stream.of("john@example.com", "jane@example.com"));
+
+        emailExistenceFilter.rebuild();
+
+        verify(userRepository, times(2)).streamAllEmails();
+        assertThat(emailExistenceFilter.mightExist("jane@example.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should wait for the partition assignment of the event listener before the first build")
+    void shouldNotBuildOnReadyWithEventListener() {
+        var afterAssignment = new EmailExistenceFilter(userRepository, transactionManager, true, true, 1000, 0.001);
+
+        afterAssignment.build();
+
+        assertThat(afterAssignment.isReady()).isFalse();
+        verifyNoInteractions(userRepository);
+    }
+}
@@ -0,0 +1,134 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.dto.EmailBatchItemResultDTO;
+import com.artemyakkonen.aston_spring_boot.dto.EmailBatchItemResultDTO.Status;
+import com.artemyakkonen.aston_spring_boot.dto.EmailMessageDTO;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import com.artemyakkonen.aston_spring_boot.service.EmailExistenceFilter;
+import com.artemyakkonen.aston_spring_boot.service.EmailServiceImpl;
+import com.artemyakkonen.aston_spring_boot.service.OutboxService;
+import com.artemyakkonen.core.EmailRequestedEvent;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EmailService Unit Tests")
+class EmailServiceTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EmailExistenceFilter emailExistenceFilter;
+
+    @Mock
+    private OutboxService outboxService;
+
+    private EmailServiceImpl emailService;
+
+    @BeforeEach
+    void setUp() {
+        emailService = new EmailServiceImpl(userRepository, emailExistenceFilter, outboxService,
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, false);
+        lenient().when(emailExistenceFilter.mightExist(anyString())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Should queue an email request keyed by the recipient")
+    void shouldQueueEmail() {
+        when(userRepository.existsByEmail("john@example.com")).thenReturn(true);
+
+        emailService.send("john@example.com", "Hello");
+
+        var eventCaptor = ArgumentCaptor.forClass(EmailRequestedEvent.class);
+        verify(outboxService).enqueue(eq(EmailServiceImpl.EMAIL_REQUESTED_TOPIC), eq("john@example.com"), eventCaptor.capture());
+        assertThat(eventCaptor.getValue().getMessage()).isEqualTo("Hello");
+        assertThat(eventCaptor.getValue().getEventId()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should look the recipient up by natural id when the second-level cache is enabled")
+    void shouldUseNaturalIdWithSecondLevelCache() {
+        emailService = new EmailServiceImpl(userRepository, emailExistenceFilter, outboxService,
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, true);
+        when(userRepository.findByNaturalId("john@example.com")).thenReturn(Optional.of(new User()));
+
+        emailService.send("john@example.com", "Hello");
+
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(outboxService).enqueue(eq(EmailServiceImpl.EMAIL_REQUESTED_TOPIC), eq("john@example.com"), any());
+    }
+
+    @Test
+    @DisplayName("Should resolve recipients with one query per chunk")
+    @SuppressWarnings("unchecked")
+    void shouldSendBatchWithOneQueryPerChunk() {
+        when(userRepository.findExistingEmails(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(0).stream()
+                        .filter(email -> email.startsWith("known"))
+                        .toList());
+
+        var results = emailService.sendAll(List.of(
+                message("known1@example.com"),
+                message("unknown@example.com"),
+                message("known2@example.com"),
+                message("known1@example.com"),
+                message("known3@example.com")));
+
+        assertThat(results).extracting(EmailBatchItemResultDTO::getStatus)
+                .containsExactly(Status.QUEUED, Status.NOT_FOUND, Status.QUEUED, Status.QUEUED, Status.QUEUED);
+        assertThat(results).extracting(EmailBatchItemResultDTO::getIndex).containsExactly(0, 1, 2, 3, 4);
+        verify(userRepository, times(3)).findExistingEmails(anyCollection());
+        verify(userRepository, never()).findByNaturalId(anyString());
+        verify(outboxService, times(3)).enqueueAll(eq(EmailServiceImpl.EMAIL_REQUESTED_TOPIC), anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid messages and addresses unknown to the filter without querying")
+    void shouldRejectWithoutQuery() {
+        when(emailExistenceFilter.mightExist("absent@example.com")).thenReturn(false);
+
+        var results = emailService.sendAll(List.of(
+                message("not-an-email"),
+                new EmailMessageDTO("john@example.com", " "),
+                message("absent@example.com")));
+
+        assertThat(results).extracting(EmailBatchItemResultDTO::getStatus)
+                .containsExactly(Status.INVALID, Status.INVALID, Status.NOT_FOUND);
+        verifyNoInteractions(userRepository, outboxService);
+    }
+
+    @Test
+    @DisplayName("Should mark a chunk as failed when it can not be queued")
+    void shouldFailChunk() {
+        when(userRepository.findExistingEmails(anyCollection()))
+                .thenThrow(new RuntimeException("Database unavailable"))
+                .thenReturn(List.of("c@example.com"));
+
+        var results = emailService.sendAll(List.of(
+                message("a@example.com"),
+                message("b@example.com"),
+                message("c@example.com")));
+
+        assertThat(results).extracting(EmailBatchItemResultDTO::getStatus)
+                .containsExactly(Status.FAILED, Status.FAILED, Status.QUEUED);
+    }
+
+    private static EmailMessageDTO message(String email) {
+        return new EmailMessageDTO(email, "Hello");
+    }
+}
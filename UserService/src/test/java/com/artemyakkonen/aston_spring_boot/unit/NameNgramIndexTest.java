@@ -0,0 +1,87 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import com.artemyakkonen.aston_spring_boot.search.NameNgramIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NameNgramIndex Unit Tests")
+class NameNgramIndexTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NameNgramIndex nameNgramIndex;
+
+    @BeforeEach
+    void setUp() {
+        nameNgramIndex = new NameNgramIndex(userRepository, transactionManager, true, 2, 2);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(userRepository.streamAllNames()).thenReturn(Stream.of(
+                new Object[]{1L, "John Doe"},
+                new Object[]{2L, "Jane Smith"},
+                new Object[]{3L, "Bob Johnson"}
+        ));
+    }
+
+    @Test
+    @DisplayName("Should not answer before the index is built")
+    void shouldNotAnswerBeforeBuild() {
+        assertThat(nameNgramIndex.candidates("jo")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should return candidate ids for short terms")
+    void shouldReturnCandidates() {
+        nameNgramIndex.build();
+
+        assertThat(nameNgramIndex.candidates("jo")).hasValueSatisfying(ids -> assertThat(ids).containsExactlyInAnyOrder(1L, 3L));
+        assertThat(nameNgramIndex.candidates("Sm")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(2L));
+        assertThat(nameNgramIndex.candidates("zz")).hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should leave long and common terms to the database")
+    void shouldSkipLongAndCommonTerms() {
+        nameNgramIndex.build();
+
+        assertThat(nameNgramIndex.candidates("john")).isEmpty();
+        assertThat(nameNgramIndex.candidates("n")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should index names added after build")
+    void shouldIndexAddedNames() {
+        nameNgramIndex.build();
+
+        nameNgramIndex.add(4L, "Zoe");
+
+        assertThat(nameNgramIndex.candidates("zo")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(4L));
+    }
+
+    @Test
+    @DisplayName("Should stay empty when disabled")
+    void shouldNotBuildWhenDisabled() {
+        var disabled = new NameNgramIndex(userRepository, transactionManager, false, 2, 2);
+
+        disabled.build();
+
+        assertThat(disabled.isReady()).isFalse();
+        assertThat(disabled.candidates("jo")).isEmpty();
+    }
+}
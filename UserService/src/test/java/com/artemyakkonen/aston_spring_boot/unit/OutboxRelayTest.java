@@ -0,0 +1,147 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.model.OutboxEvent;
+import com.artemyakkonen.aston_spring_boot.repository.OutboxEventRepository;
+import com.artemyakkonen.aston_spring_boot.service.OutboxRelay;
+import com.artemyakkonen.core.UserCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxRelay Unit Tests")
+class OutboxRelayTest {
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private KafkaTemplate<String, String> outboxKafkaTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = new OutboxRelay(outboxEventRepository, outboxKafkaTemplate, transactionTemplate, meterRegistry, 2, 1000);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Should publish outbox events in order with type header and delete them")
+    @SuppressWarnings("unchecked")
+    void shouldPublishAndDeleteEvents() {
+        var first = outboxEvent(1L, "1");
+        var second = outboxEvent(2L, "2");
+
+        when(outboxEventRepository.findBatchForUpdate(2))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of());
+        when(outboxKafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class, RETURNS_DEEP_STUBS)));
+
+        outboxRelay.relay();
+
+        ArgumentCaptor<ProducerRecord<String, String>> records = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(outboxKafkaTemplate, times(2)).send(records.capture());
+        assertThat(records.getAllValues()).extracting(ProducerRecord::key).containsExactly("1", "2");
+        assertThat(new String(records.getValue().headers().lastHeader("__TypeId__").value(), StandardCharsets.UTF_8))
+                .isEqualTo(UserCreatedEvent.class.getName());
+
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxEventRepository, times(2)).findBatchForUpdate(2);
+
+        assertThat(meterRegistry.get("outbox.relay.send").tag("result", "success").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("outbox.relay.lag").tag("topic", "user-created-events-topic").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should keep events starting from the first failed send")
+    @SuppressWarnings("unchecked")
+    void shouldKeepEventsAfterFailedSend() {
+        var first = outboxEvent(1L, "1");
+        var second = outboxEvent(2L, "2");
+
+        when(outboxEventRepository.findBatchForUpdate(2)).thenReturn(List.of(first, second));
+        when(outboxKafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class, RETURNS_DEEP_STUBS)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker unavailable")));
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(outboxEventRepository, times(1)).findBatchForUpdate(2);
+
+        assertThat(meterRegistry.get("outbox.relay.send").tag("result", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("outbox.relay.send").tag("result", "failure").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should wait for the acknowledgements of a batch once, not per event")
+    @SuppressWarnings("unchecked")
+    void shouldBoundWaitingByOneTimeout() {
+        var first = outboxEvent(1L, "1");
+        var second = outboxEvent(2L, "2");
+
+        when(outboxEventRepository.findBatchForUpdate(2)).thenReturn(List.of(first, second));
+        when(outboxKafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(new CompletableFuture<>())
+                .thenReturn(new CompletableFuture<>());
+
+        long start = System.nanoTime();
+        outboxRelay.relay();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1900));
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("Should do nothing when outbox is empty")
+    void shouldDoNothingWhenOutboxIsEmpty() {
+        when(outboxEventRepository.findBatchForUpdate(2)).thenReturn(List.of());
+
+        outboxRelay.relay();
+
+        verifyNoInteractions(outboxKafkaTemplate);
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    private OutboxEvent outboxEvent(Long id, String key) {
+        return OutboxEvent.builder()
+                .id(id)
+                .topic("user-created-events-topic")
+                .messageKey(key)
+                .eventType(UserCreatedEvent.class.getName())
+                .payload("{\"id\":" + key + "}")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
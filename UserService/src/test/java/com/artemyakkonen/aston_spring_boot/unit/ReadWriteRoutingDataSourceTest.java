@@ -0,0 +1,243 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.datasource.ReadWriteRoutingDataSource;
+import com.artemyakkonen.aston_spring_boot.datasource.ReadYourWrites;
+import com.artemyakkonen.aston_spring_boot.datasource.ReadYourWritesFilter;
+import com.artemyakkonen.aston_spring_boot.datasource.Replica;
+import com.artemyakkonen.aston_spring_boot.datasource.ReplicaLagMonitor;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ReadWriteRoutingDataSource Unit Tests")
+class ReadWriteRoutingDataSourceTest {
+    private ReadWriteRoutingDataSource routingDataSource;
+    private ReplicaLagMonitor lagMonitor;
+    private LazyConnectionDataSourceProxy dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcTemplate primaryJdbcTemplate;
+    private JdbcTemplate replicaJdbcTemplate;
+    private TransactionTemplate readTransaction;
+    private TransactionTemplate writeTransaction;
+
+    @BeforeEach
+    void setUp() {
+        var primary = h2("primary");
+        var replica = h2("replica-0");
+        primaryJdbcTemplate = new JdbcTemplate(primary);
+        replicaJdbcTemplate = new JdbcTemplate(replica);
+        replicaJdbcTemplate.execute("CREATE TABLE replica_lag (lag_ms BIGINT)");
+        replicaJdbcTemplate.update("INSERT INTO replica_lag VALUES (0)");
+
+        routingDataSource = new ReadWriteRoutingDataSource(primary, List.of(new Replica("replica-0", replica)));
+        lagMonitor = new ReplicaLagMonitor(routingDataSource, "SELECT lag_ms FROM replica_lag", 1000, 1000);
+
+        dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        var transactionManager = new DataSourceTransactionManager(dataSource);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+        routingDataSource.destroy();
+    }
+
+    @Test
+    @DisplayName("Should read from a checked replica and write to the primary")
+    void shouldRouteReadsToReplica() {
+        assertThat(read()).isEqualTo("primary");
+
+        lagMonitor.checkReplicas();
+
+        assertThat(read()).isEqualTo("replica-0");
+        assertThat(write()).isEqualTo("primary");
+        assertThat(node()).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary while replica lag exceeds the limit")
+    void shouldFallBackToPrimaryOnLag() {
+        replicaJdbcTemplate.update("UPDATE replica_lag SET lag_ms = 5000");
+        lagMonitor.checkReplicas();
+
+        assertThat(routingDataSource.getReplicas().get(0).getLagMillis()).isEqualTo(5000);
+        assertThat(read()).isEqualTo("primary");
+
+        replicaJdbcTemplate.update("UPDATE replica_lag SET lag_ms = 10");
+        lagMonitor.checkReplicas();
+
+        assertThat(read()).isEqualTo("replica-0");
+    }
+
+    @Test
+    @DisplayName("Should take a replica out of rotation when its last check is too old")
+    void shouldExpireStaleCheck() throws InterruptedException {
+        var monitor = new ReplicaLagMonitor(routingDataSource, "SELECT lag_ms FROM replica_lag", 1000, 10);
+        monitor.checkReplicas();
+        assertThat(read()).isEqualTo("replica-0");
+
+        TimeUnit.MILLISECONDS.sleep(10L * ReplicaLagMonitor.CHECKS_UNTIL_STALE + 20);
+
+        assertThat(routingDataSource.getReplicas().get(0).isHealthy()).isFalse();
+        assertThat(read()).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should read from the primary when the request has to see its own writes")
+    void shouldReadOwnWritesFromPrimary() {
+        lagMonitor.checkReplicas();
+        ReadYourWrites.requirePrimary();
+
+        assertThat(read()).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should run the read-only repository query methods on a checked replica")
+    void shouldRouteRepositoryQueriesToReplica() {
+        try (var context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(DataSource.class, () -> dataSource);
+            context.register(RepositoryConfig.class);
+            context.refresh();
+            var userRepository = context.getBean(UserRepository.class);
+
+            var saved = userRepository.save(new User(null, "John Doe", "john.doe@example.com", 30));
+            replicateUsersAndClearPrimary();
+
+            assertThat(userRepository.existsByEmail("john.doe@example.com")).isFalse();
+
+            lagMonitor.checkReplicas();
+
+            assertThat(userRepository.existsByEmail("john.doe@example.com")).isTrue();
+            assertThat(userRepository.findExistingEmails(List.of("john.doe@example.com", "jane.smith@example.com")))
+                    .containsExactly("john.doe@example.com");
+            assertThat(userRepository.findVersionById(saved.getId())).isPresent();
+            assertThat(userRepository.findById(saved.getId())).isPresent();
+        }
+    }
+
+    @Test
+    @DisplayName("Should read a snapshot from the primary and restore replica reads afterwards")
+    void shouldReadSnapshotFromPrimary() {
+        lagMonitor.checkReplicas();
+
+        assertThat(ReadYourWrites.onPrimary(this::read)).isEqualTo("primary");
+        assertThat(read()).isEqualTo("replica-0");
+    }
+
+    @Test
+    @DisplayName("Should make the client sticky to the primary after a mutating request")
+    void shouldStickToPrimaryAfterWrite() throws Exception {
+        var filter = new ReadYourWritesFilter(5000);
+        var primaryRequired = new AtomicBoolean();
+
+        var post = new MockHttpServletRequest("POST", "/api/users");
+        var postResponse = new MockHttpServletResponse();
+        filter.doFilter(post, postResponse, (request, response) -> primaryRequired.set(ReadYourWrites.isPrimaryRequired()));
+
+        Cookie cookie = postResponse.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertThat(primaryRequired).isTrue();
+        assertThat(cookie).isNotNull();
+        assertThat(ReadYourWrites.isPrimaryRequired()).isFalse();
+
+        var stickyGet = new MockHttpServletRequest("GET", "/api/users/1");
+        stickyGet.setCookies(cookie);
+        filter.doFilter(stickyGet, new MockHttpServletResponse(),
+                (request, response) -> primaryRequired.set(ReadYourWrites.isPrimaryRequired()));
+        assertThat(primaryRequired).isTrue();
+
+        var expiredGet = new MockHttpServletRequest("GET", "/api/users/1");
+        expiredGet.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, String.valueOf(System.currentTimeMillis() - 1)));
+        filter.doFilter(expiredGet, new MockHttpServletResponse(),
+                (request, response) -> primaryRequired.set(ReadYourWrites.isPrimaryRequired()));
+        assertThat(primaryRequired).isFalse();
+    }
+
+    /**
+     * Copies the users table with its rows to the replica and empties it on the primary, so a query
+     * finds the rows only when it is routed to the replica.
+     */
+    private void replicateUsersAndClearPrimary() {
+        primaryJdbcTemplate.queryForList("SCRIPT TABLE users", String.class).forEach(replicaJdbcTemplate::execute);
+        primaryJdbcTemplate.update("DELETE FROM users");
+    }
+
+    private String read() {
+        return readTransaction.execute(status -> node());
+    }
+
+    private String write() {
+        return writeTransaction.execute(status -> node());
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static HikariDataSource h2(String name) {
+        var dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID());
+        dataSource.setPoolName(name);
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(32))");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = UserRepository.class))
+    static class RepositoryConfig {
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            var entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+            entityManagerFactory.setDataSource(dataSource);
+            entityManagerFactory.setManagedTypes(PersistenceManagedTypes.of(User.class.getName()));
+            entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            entityManagerFactory.setJpaPropertyMap(Map.of(AvailableSettings.HBM2DDL_AUTO, "create"));
+            return entityManagerFactory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.config.CacheConfig;
+import com.artemyakkonen.aston_spring_boot.dto.UserBatchItemResultDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserBatchItemResultDTO.Status;
+import com.artemyakkonen.aston_spring_boot.dto.UserBulkDeleteResultDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserCreateDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.mapper.UserMapper;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.repository.DeletedUserView;
+import com.artemyakkonen.aston_spring_boot.repository.UserCacheInvalidator;
+import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import com.artemyakkonen.aston_spring_boot.service.EmailExistenceFilter;
+import com.artemyakkonen.aston_spring_boot.service.OutboxService;
+import com.artemyakkonen.aston_spring_boot.service.UserBatchService;
+import com.artemyakkonen.core.UserDeletedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserBatchService Unit Tests")
+class UserBatchServiceTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private EmailExistenceFilter emailExistenceFilter;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private UserCacheInvalidator userCacheInvalidator;
+
+    private Cache usersCache;
+
+    private UserBatchService userBatchService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        var cacheManager = new ConcurrentMapCacheManager(CacheConfig.USERS_CACHE);
+        usersCache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        userBatchService = new UserBatchService(userRepository, userMapper, outboxService, emailExistenceFilter,
+                Validation.buildDefaultValidatorFactory().getValidator(), entityManager, transactionTemplate,
+                cacheManager, userCacheInvalidator, 2);
+
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any(Consumer.class));
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Object>>getArgument(0).doInTransaction(null));
+        lenient().when(userMapper.map(any(UserCreateDTO.class))).thenAnswer(invocation -> {
+            UserCreateDTO dto = invocation.getArgument(0);
+            return User.builder().name(dto.getName()).email(dto.getEmail()).age(dto.getAge()).build();
+        });
+        lenient().when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            long id = 100;
+            for (User user : users) {
+                user.setId(id++);
+            }
+            return users;
+        });
+        lenient().when(userMapper.map(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            return UserDTO.builder().id(user.getId()).name(user.getName()).email(user.getEmail()).age(user.getAge()).build();
+        });
+    }
+
+    @Test
+    @DisplayName("Should create valid users and report per-item status")
+    @SuppressWarnings("unchecked")
+    void shouldCreateUsersWithPerItemStatus() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("taken@example.com"));
+
+        List<UserBatchItemResultDTO> results = userBatchService.createUsers(List.of(
+                user("John", "john@example.com", 25),
+                user("", "invalid@example.com", 25),
+                user("Taken", "taken@example.com", 30),
+                user("Johnny", "john@example.com", 40),
+                user("Jane", "jane@example.com", 31)
+        ));
+
+        assertThat(results).extracting(UserBatchItemResultDTO::getIndex).containsExactly(0, 1, 2, 3, 4);
+        assertThat(results).extracting(UserBatchItemResultDTO::getStatus).containsExactly(
+                Status.CREATED, Status.INVALID, Status.DUPLICATE, Status.DUPLICATE, Status.CREATED);
+        assertThat(results.get(0).getUser().getId()).isNotNull();
+        assertThat(results.get(1).getError()).startsWith("name");
+
+        ArgumentCaptor<List<Object>> events = ArgumentCaptor.forClass(List.class);
+        verify(outboxService, times(2)).enqueueAll(eq("user-created-events-topic"), events.capture(), any());
+        assertThat(events.getAllValues()).allSatisfy(chunk -> assertThat(chunk).hasSize(1));
+        verify(entityManager, times(2)).clear();
+        verify(emailExistenceFilter).add("john@example.com");
+        verify(emailExistenceFilter).add("jane@example.com");
+    }
+
+    @Test
+    @DisplayName("Should mark chunk as failed when storing it throws")
+    void shouldMarkChunkAsFailed() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        when(userRepository.saveAll(anyList())).thenThrow(new RuntimeException("DB is down"));
+
+        List<UserBatchItemResultDTO> results = userBatchService.createUsers(List.of(
+                user("John", "john@example.com", 25),
+                user("Jane", "jane@example.com", 31)
+        ));
+
+        assertThat(results).extracting(UserBatchItemResultDTO::getStatus)
+                .containsOnly(Status.FAILED);
+        verify(outboxService, never()).enqueueAll(anyString(), anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Should query existing emails once per chunk")
+    void shouldQueryExistingEmailsOncePerChunk() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+
+        userBatchService.createUsers(List.of(
+                user("A", "a@example.com", 20),
+                user("B", "b@example.com", 21),
+                user("C", "c@example.com", 22)
+        ));
+
+        verify(userRepository).findExistingEmails(Set.of("a@example.com", "b@example.com"));
+        verify(userRepository).findExistingEmails(Set.of("c@example.com"));
+    }
+
+    @Test
+    @DisplayName("Should delete users in chunks and report missing ids")
+    @SuppressWarnings("unchecked")
+    void shouldDeleteUsersInChunks() {
+        usersCache.put(1L, UserDTO.builder().id(1L).build());
+        when(userRepository.deleteAllByIdReturning(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> id != 2L).map(id -> deletedUser(id, "user" + id + "@example.com")).toList();
+        });
+
+        UserBulkDeleteResultDTO result = userBatchService.deleteUsers(List.of(1L, 2L, 3L, 1L));
+
+        assertThat(result.getDeleted()).containsExactly(1L, 3L);
+        assertThat(result.getNotFound()).containsExactly(2L);
+        assertThat(result.getFailed()).isEmpty();
+        assertThat(usersCache.get(1L)).isNull();
+
+        verify(userRepository).deleteAllByIdReturning(List.of(1L, 2L));
+        verify(userRepository).deleteAllByIdReturning(List.of(3L));
+        ArgumentCaptor<List<UserDeletedEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(outboxService, times(2)).enqueueAll(eq("user-deleted-events-topic"), events.capture(), any());
+        assertThat(events.getAllValues()).flatExtracting(chunk -> chunk).extracting(UserDeletedEvent::getEmail)
+                .containsExactly("user1@example.com", "user3@example.com");
+    }
+
+    @Test
+    @DisplayName("Should report ids of a failed delete chunk")
+    void shouldReportFailedDeleteChunk() {
+        when(userRepository.deleteAllByIdReturning(anyCollection())).thenThrow(new RuntimeException("DB is down"));
+
+        UserBulkDeleteResultDTO result = userBatchService.deleteUsers(List.of(1L, 2L));
+
+        assertThat(result.getDeleted()).isEmpty();
+        assertThat(result.getFailed()).containsExactly(1L, 2L);
+        assertThat(result.getNotFound()).isEmpty();
+    }
+
+    private DeletedUserView deletedUser(Long id, String email) {
+        return new DeletedUserView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+
+    private UserCreateDTO user(String name, String email, Integer age) {
+        return UserCreateDTO.builder().name(name).email(email).age(age).build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserParamsDTO;
+import com.artemyakkonen.aston_spring_boot.exception.InvalidPagingException;
+import com.artemyakkonen.aston_spring_boot.pagination.UserCursorCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("UserCursorCodec Unit Tests")
+class UserCursorCodecTest {
+    private final UserCursorCodec codec = new UserCursorCodec();
+
+    @Test
+    @DisplayName("Should round-trip name cursor containing separator")
+    void shouldRoundTripNameCursor() {
+        UserParamsDTO params = params("name", "asc");
+        UserDTO last = UserDTO.builder().id(42L).name("A|B").build();
+
+        params.setAfter(codec.encode(params, last));
+
+        assertThat(codec.decode(params).getKeys())
+                .containsEntry("name", "A|B")
+                .containsEntry("id", 42L);
+    }
+
+    @Test
+    @DisplayName("Should encode a null sort value as null, not as the string null")
+    void shouldRoundTripNullSortValue() {
+        UserParamsDTO params = params("name", "asc");
+        params.setAfter(codec.encode(params, UserDTO.builder().id(42L).build()));
+
+        assertThat(codec.decode(params).getKeys())
+                .containsEntry("name", null)
+                .containsEntry("id", 42L);
+
+        params.setAfter(codec.encode(params, UserDTO.builder().id(42L).name("null").build()));
+
+        assertThat(codec.decode(params).getKeys()).containsEntry("name", "null");
+    }
+
+    @Test
+    @DisplayName("Should use only id for id sort")
+    void shouldUseOnlyIdForIdSort() {
+        UserParamsDTO params = params("id", "desc");
+        params.setAfter(codec.encode(params, UserDTO.builder().id(7L).build()));
+
+        assertThat(codec.decode(params).getKeys()).containsOnlyKeys("id");
+    }
+
+    @Test
+    @DisplayName("Should start from the beginning without cursor")
+    void shouldStartFromBeginningWithoutCursor() {
+        assertThat(codec.decode(params("createdAt", "desc")).isInitial()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject cursor issued for another sort order")
+    void shouldRejectCursorForAnotherSort() {
+        UserParamsDTO params = params("age", "asc");
+        params.setAfter(codec.encode(params, UserDTO.builder().id(1L).age(30).build()));
+        params.setSortDirection("desc");
+
+        assertThatThrownBy(() -> codec.decode(params)).isInstanceOf(InvalidPagingException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject malformed cursor")
+    void shouldRejectMalformedCursor() {
+        UserParamsDTO params = params("age", "asc");
+        params.setAfter("not a cursor!");
+
+        assertThatThrownBy(() -> codec.decode(params)).isInstanceOf(InvalidPagingException.class);
+    }
+
+    private UserParamsDTO params(String sortBy, String sortDirection) {
+        UserParamsDTO params = new UserParamsDTO();
+        params.setSortBy(sortBy);
+        params.setSortDirection(sortDirection);
+        return params;
+    }
+}
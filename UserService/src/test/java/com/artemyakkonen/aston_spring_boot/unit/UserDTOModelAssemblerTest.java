@@ -0,0 +1,60 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.hateoas.UserDTOModelAssembler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UserDTOModelAssembler Unit Tests")
+class UserDTOModelAssemblerTest {
+    private final UserDTOModelAssembler userDTOModelAssembler = new UserDTOModelAssembler();
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest("GET", "/api/users");
+        request.setServerName("users.example.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Should build self and users links for every user")
+    void shouldBuildLinks() {
+        var first = userDTOModelAssembler.toModel(UserDTO.builder().id(1L).build());
+        var second = userDTOModelAssembler.toModel(UserDTO.builder().id(2L).build());
+
+        assertThat(first.getRequiredLink(IanaLinkRelations.SELF).getHref()).isEqualTo("http://users.example.com/api/users/1");
+        assertThat(second.getRequiredLink(IanaLinkRelations.SELF).getHref()).isEqualTo("http://users.example.com/api/users/2");
+        assertThat(first.getRequiredLink(LinkRelation.of("users")).getHref()).isEqualTo("http://users.example.com/api/users");
+        assertThat(first.getRequiredLink(LinkRelation.of("users")))
+                .isSameAs(second.getRequiredLink(LinkRelation.of("users")));
+    }
+
+    @Test
+    @DisplayName("Should resolve links separately for each request")
+    void shouldResolveLinksPerRequest() {
+        userDTOModelAssembler.toModel(UserDTO.builder().id(1L).build());
+
+        var otherRequest = new MockHttpServletRequest("GET", "/api/users");
+        otherRequest.setServerName("other.example.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(otherRequest));
+
+        var model = userDTOModelAssembler.toModel(UserDTO.builder().id(7L).build());
+
+        assertThat(model.getRequiredLink(IanaLinkRelations.SELF).getHref()).isEqualTo("http://other.example.com/api/users/7");
+    }
+}
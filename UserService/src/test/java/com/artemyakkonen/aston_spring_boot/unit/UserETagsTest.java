@@ -0,0 +1,59 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserVersionDTO;
+import com.artemyakkonen.aston_spring_boot.hateoas.UserETags;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UserETags Unit Tests")
+class UserETagsTest {
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 1, 15, 10, 30);
+
+    @Test
+    @DisplayName("Should change user ETag with version and updatedAt")
+    void shouldChangeUserETagOnWrite() {
+        var eTag = UserETags.of(new UserVersionDTO(1L, 1L, UPDATED_AT));
+
+        assertThat(eTag).startsWith("\"").endsWith("\"");
+        assertThat(UserETags.of(new UserVersionDTO(1L, 1L, UPDATED_AT))).isEqualTo(eTag);
+        assertThat(UserETags.of(new UserVersionDTO(1L, 2L, UPDATED_AT))).isNotEqualTo(eTag);
+        assertThat(UserETags.of(new UserVersionDTO(1L, 1L, UPDATED_AT.plusSeconds(1)))).isNotEqualTo(eTag);
+        assertThat(UserETags.lastModified(new UserVersionDTO(1L, 1L, null))).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should change list ETag when any element, the cursor or the representation changes")
+    void shouldChangeListETag() {
+        var users = List.of(user(1L, 1L), user(2L, 1L));
+        var eTag = UserETags.of("application/hal+json", users, null);
+
+        assertThat(UserETags.of("application/hal+json", List.of(user(1L, 1L), user(2L, 1L)), null)).isEqualTo(eTag);
+        assertThat(UserETags.of("application/hal+json", List.of(user(1L, 1L), user(2L, 2L)), null)).isNotEqualTo(eTag);
+        assertThat(UserETags.of("application/hal+json", List.of(user(1L, 1L)), null)).isNotEqualTo(eTag);
+        assertThat(UserETags.of("application/hal+json", users, "cursor")).isNotEqualTo(eTag);
+        assertThat(UserETags.of("application/vnd.users.lean+json", users, null)).isNotEqualTo(eTag);
+    }
+
+    @Test
+    @DisplayName("Should read the version from an If-Match value of the same user only")
+    void shouldReadVersionFromIfMatch() {
+        var eTag = UserETags.of(new UserVersionDTO(1L, 3L, UPDATED_AT));
+
+        assertThat(UserETags.version(eTag, 1L)).contains(3L);
+        assertThat(UserETags.version("W/" + eTag, 1L)).contains(3L);
+        assertThat(UserETags.version(UserETags.of(new UserVersionDTO(1L, 3L, null)), 1L)).contains(3L);
+        assertThat(UserETags.version(eTag, 2L)).isEmpty();
+        assertThat(UserETags.version("*", 1L)).isEmpty();
+        assertThat(UserETags.version(UserETags.of("application/hal+json", List.of(user(1L, 3L)), null), 1L)).isEmpty();
+    }
+
+    private static UserDTO user(Long id, Long version) {
+        return UserDTO.builder().id(id).version(version).updatedAt(UPDATED_AT).build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.config.CacheConfig;
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.handler.UserEventsHandler;
+import com.artemyakkonen.aston_spring_boot.search.NameNgramIndex;
+import com.artemyakkonen.aston_spring_boot.service.EmailExistenceFilter;
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.core.UserDeletedEvent;
+import com.artemyakkonen.core.UserUpdatedEvent;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("UserEventsHandler Unit Tests")
+class UserEventsHandlerTest {
+    private Cache usersCache;
+    private EmailExistenceFilter emailExistenceFilter;
+    private NameNgramIndex nameNgramIndex;
+    private UserEventsHandler userEventsHandler;
+
+    @BeforeEach
+    void setUp() {
+        var cacheManager = new ConcurrentMapCacheManager(CacheConfig.USERS_CACHE);
+        usersCache = cacheManager.getCache(CacheConfig.USERS_CACHE);
+        emailExistenceFilter = mock(EmailExistenceFilter.class);
+        nameNgramIndex = mock(NameNgramIndex.class);
+        userEventsHandler = new UserEventsHandler(cacheManager, emailExistenceFilter, nameNgramIndex);
+
+        usersCache.put(1L, UserDTO.builder().id(1L).name("John").build());
+        usersCache.put(2L, UserDTO.builder().id(2L).name("Jane").build());
+    }
+
+    @Test
+    @DisplayName("Should evict cached user on update event")
+    void shouldEvictOnUpdate() {
+        userEventsHandler.handle(UserUpdatedEvent.builder().id(1L).name("Johnny").email("johnny@example.com").build());
+
+        assertThat(usersCache.get(1L)).isNull();
+        assertThat(usersCache.get(2L)).isNotNull();
+        verify(emailExistenceFilter).add("johnny@example.com");
+        verify(nameNgramIndex).add(1L, "Johnny");
+    }
+
+    @Test
+    @DisplayName("Should evict cached user on delete event")
+    void shouldEvictOnDelete() {
+        userEventsHandler.handle(UserDeletedEvent.builder().id(2L).build());
+
+        assertThat(usersCache.get(2L)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should evict cached user on create event")
+    void shouldEvictOnCreate() {
+        userEventsHandler.handle(UserCreatedEvent.builder().id(1L).email("john@example.com").build());
+
+        assertThat(usersCache.get(1L)).isNull();
+        verify(emailExistenceFilter).add("john@example.com");
+    }
+
+    @Test
+    @DisplayName("Should build the email filter once partitions are assigned")
+    void shouldBuildFilterOnAssignment() {
+        userEventsHandler.onPartitionsAssigned(Map.of(new TopicPartition("user-created-events-topic", 0), 5L), null);
+
+        verify(emailExistenceFilter).partitionsAssigned();
+    }
+}
@@ -0,0 +1,108 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserParamsDTO;
+import com.artemyakkonen.aston_spring_boot.mapper.UserMapper;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import com.artemyakkonen.aston_spring_boot.service.UserExportService;
+import com.artemyakkonen.aston_spring_boot.service.UserExportService.Format;
+import com.artemyakkonen.aston_spring_boot.specification.UserSpecification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserExportService Unit Tests")
+class UserExportServiceTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserSpecification userSpecification;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserExportService userExportService;
+
+    private User john;
+    private User jane;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        var objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        userExportService = new UserExportService(userRepository, userSpecification, userMapper,
+                entityManager, transactionManager, objectMapper, 100);
+
+        var createdAt = LocalDateTime.of(2025, 1, 15, 10, 30);
+        john = User.builder().id(1L).name("John").email("john@example.com").age(25).createdAt(createdAt).build();
+        jane = User.builder().id(2L).name("Doe, \"Jane\"").email("jane@example.com").age(31).createdAt(createdAt).build();
+
+        when(userSpecification.build(any())).thenReturn(mock(Specification.class));
+        when(userRepository.streamAll(any(Specification.class), eq(Sort.by("id")), eq(100)))
+                .thenReturn(Stream.of(john, jane));
+        when(userMapper.map(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            return UserDTO.builder().id(user.getId()).name(user.getName()).email(user.getEmail())
+                    .age(user.getAge()).createdAt(user.getCreatedAt()).build();
+        });
+    }
+
+    @Test
+    @DisplayName("Should stream users as NDJSON and detach exported entities")
+    void shouldExportNdjson() {
+        var out = new ByteArrayOutputStream();
+
+        userExportService.export(new UserParamsDTO(), Format.NDJSON, out);
+
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("{\"id\":1,\"name\":\"John\"").contains("\"createdAt\":\"2025-01-15T10:30:00\"");
+        assertThat(lines[1]).startsWith("{\"id\":2,");
+        assertThat(lines[2]).isEmpty();
+        verify(entityManager).detach(john);
+        verify(entityManager).detach(jane);
+    }
+
+    @Test
+    @DisplayName("Should stream users as CSV with escaping")
+    void shouldExportCsv() {
+        var out = new ByteArrayOutputStream();
+
+        userExportService.export(new UserParamsDTO(), Format.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                id,name,email,age,createdAt
+                1,John,john@example.com,25,2025-01-15T10:30
+                2,"Doe, ""Jane\""",jane@example.com,31,2025-01-15T10:30
+                """);
+    }
+}
@@ -0,0 +1,97 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserParamsDTO;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.pagination.UserCursorCodec;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.H2Dialect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Keyset scrolling over nullable sort fields")
+class UserKeysetScrollTest {
+    private static final int PAGE_SIZE = 2;
+
+    private final UserCursorCodec codec = new UserCursorCodec();
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        var configuration = new Configuration().addAnnotatedClass(User.class);
+        // Nulls sort as the largest values, like in PostgreSQL
+        configuration.setProperty(AvailableSettings.JAKARTA_JDBC_URL,
+                "jdbc:h2:mem:keyset-" + UUID.randomUUID() + ";DEFAULT_NULL_ORDERING=HIGH");
+        configuration.setProperty(AvailableSettings.DIALECT, H2Dialect.class.getName());
+        configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        sessionFactory = configuration.buildSessionFactory();
+
+        sessionFactory.inTransaction(session -> {
+            session.persist(new User(null, "Bob", "bob@example.com", 30));
+            session.persist(new User(null, null, "nameless@example.com", null));
+            session.persist(new User(null, "Alice", "alice@example.com", 25));
+            session.persist(new User(null, null, "anonymous@example.com", 30));
+            session.persist(new User(null, "Bob", "bob2@example.com", null));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+    }
+
+    @ParameterizedTest(name = "{0} {1}")
+    @CsvSource({"age, asc", "age, desc", "name, asc", "name, desc", "createdAt, asc", "id, desc"})
+    @DisplayName("Should visit every user once, in sort order, across pages")
+    void shouldScrollOverNulls(String sortBy, String sortDirection) {
+        var params = new UserParamsDTO();
+        params.setSortBy(sortBy);
+        params.setSortDirection(sortDirection);
+
+        List<Long> scrolled = new ArrayList<>();
+        List<User> page;
+        do {
+            page = page(params, PAGE_SIZE);
+            page.forEach(user -> scrolled.add(user.getId()));
+            if (!page.isEmpty()) {
+                params.setAfter(codec.encode(params, toDTO(page.get(page.size() - 1))));
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        params.setAfter(null);
+        assertThat(scrolled).containsExactlyElementsOf(page(params, Integer.MAX_VALUE).stream().map(User::getId).toList());
+        assertThat(scrolled).hasSize(5);
+    }
+
+    private List<User> page(UserParamsDTO params, int size) {
+        return sessionFactory.fromTransaction(session -> {
+            var cb = session.getCriteriaBuilder();
+            var query = cb.createQuery(User.class);
+            var root = query.from(User.class);
+            query.where(codec.after(params).toPredicate(root, query, cb))
+                    .orderBy(QueryUtils.toOrders(params.toKeysetSort(), root, cb));
+            return session.createQuery(query).setMaxResults(size).getResultList();
+        });
+    }
+
+    private static UserDTO toDTO(User user) {
+        return UserDTO.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .age(user.getAge())
+                .createdAt(user.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.artemyakkonen.aston_spring_boot.unit;
+
+import com.artemyakkonen.aston_spring_boot.config.SecondLevelCacheConfig;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.repository.UserCacheInvalidator;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.cache.CacheManager;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("User second-level cache Tests")
+class UserSecondLevelCacheTest {
+    private CacheManager cacheManager;
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+    private UserCacheInvalidator userCacheInvalidator;
+    private Long johnId;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = SecondLevelCacheConfig.cacheManager(
+                SecondLevelCacheConfig.region(100, 60_000, true), SecondLevelCacheConfig.region(100, 60_000, true));
+
+        var configuration = new Configuration().addAnnotatedClass(User.class);
+        SecondLevelCacheConfig.hibernateProperties(cacheManager).forEach(configuration.getProperties()::put);
+        configuration.setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:l2-" + UUID.randomUUID());
+        configuration.setProperty(AvailableSettings.DIALECT, H2Dialect.class.getName());
+        configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        configuration.setProperty(AvailableSettings.GENERATE_STATISTICS, "true");
+        sessionFactory = configuration.buildSessionFactory();
+        statistics = sessionFactory.getStatistics();
+        userCacheInvalidator = new UserCacheInvalidator();
+
+        johnId = inTransaction(session -> {
+            var john = new User(null, "John Doe", "john.doe@example.com", 30);
+            session.persist(john);
+            session.persist(new User(null, "Jane Smith", "jane.smith@example.com", 25));
+            return john.getId();
+        });
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionFactory.close();
+        cacheManager.close();
+    }
+
+    @Test
+    @DisplayName("Should serve id and email lookups of a created user without queries")
+    void shouldServeLookupsFromCache() {
+        var byId = inTransaction(session -> session.find(User.class, johnId));
+        var byEmail = inTransaction(session -> session.bySimpleNaturalId(User.class).load("john.doe@example.com"));
+
+        assertThat(byId.getName()).isEqualTo("John Doe");
+        assertThat(byEmail.getId()).isEqualTo(johnId);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reload a user updated by native DML after invalidation")
+    void shouldReloadAfterNativeUpdate() {
+        inTransaction(session -> session.find(User.class, johnId));
+
+        inTransaction(session -> {
+            userCacheInvalidator.invalidate(johnId);
+            userCacheInvalidator.invalidateEmails();
+            return nativeUpdate(session, "UPDATE users SET name = 'John Smith', email = 'john.smith@example.com' WHERE id = :id");
+        });
+
+        assertThat(findById(johnId).getName()).isEqualTo("John Smith");
+        assertThat(findByEmail("john.doe@example.com")).isEmpty();
+        assertThat(findByEmail("john.smith@example.com")).map(User::getId).contains(johnId);
+    }
+
+    @Test
+    @DisplayName("Should forget a user deleted by native DML after invalidation")
+    void shouldForgetDeletedUser() {
+        inTransaction(session -> session.bySimpleNaturalId(User.class).load("john.doe@example.com"));
+
+        inTransaction(session -> {
+            userCacheInvalidator.invalidate(johnId);
+            userCacheInvalidator.invalidateEmail("john.doe@example.com");
+            return nativeUpdate(session, "DELETE FROM users WHERE id = :id");
+        });
+
+        assertThat(findById(johnId)).isNull();
+        assertThat(findByEmail("john.doe@example.com")).isEmpty();
+        assertThat(findByEmail("jane.smith@example.com")).map(User::getName).contains("Jane Smith");
+    }
+
+    @Test
+    @DisplayName("Should give every context a cache manager of its own")
+    void shouldCreateSeparateCacheManagers() {
+        try (var other = SecondLevelCacheConfig.cacheManager(
+                SecondLevelCacheConfig.region(100, 60_000, true), SecondLevelCacheConfig.region(100, 60_000, true))) {
+            assertThat(other).isNotSameAs(cacheManager);
+            assertThat(other.getCache(User.ENTITY_CACHE_REGION)).isNotNull();
+        }
+    }
+
+    private User findById(Long id) {
+        return inTransaction(session -> session.find(User.class, id));
+    }
+
+    private Optional<User> findByEmail(String email) {
+        return inTransaction(session -> session.bySimpleNaturalId(User.class).loadOptional(email));
+    }
+
+    private int nativeUpdate(Session session, String sql) {
+        return session.createNativeQuery(sql, Object.class)
+                .addSynchronizedQuerySpace(UserCacheInvalidator.QUERY_SPACE)
+                .setParameter("id", johnId)
+                .executeUpdate();
+    }
+
+    private <T> T inTransaction(Function<Session, T> work) {
+        try (var session = sessionFactory.openSession()) {
+            ReflectionTestUtils.setField(userCacheInvalidator, "entityManager", session);
+            var transaction = session.beginTransaction();
+            T result = work.apply(session);
+            transaction.commit();
+            return result;
+        }
+    }
+}
@@ -1,35 +1,52 @@
 package com.artemyakkonen.aston_spring_boot.unit;
 
+import com.artemyakkonen.aston_spring_boot.config.CacheConfig;
 import com.artemyakkonen.aston_spring_boot.dto.UserCreateDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserParamsDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserSliceDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserUpdateDTO;
+import com.artemyakkonen.aston_spring_boot.dto.UserVersionDTO;
 import com.artemyakkonen.aston_spring_boot.exception.UserNotFoundException;
+import com.artemyakkonen.aston_spring_boot.exception.VersionRequiredException;
 import com.artemyakkonen.aston_spring_boot.mapper.UserMapper;
 import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.pagination.UserCursorCodec;
+import com.artemyakkonen.aston_spring_boot.repository.DeletedUserView;
+import com.artemyakkonen.aston_spring_boot.repository.UserCacheInvalidator;
 import com.artemyakkonen.aston_spring_boot.repository.UserRepository;
+import com.artemyakkonen.aston_spring_boot.search.NameNgramIndex;
+import com.artemyakkonen.aston_spring_boot.service.EmailExistenceFilter;
+import com.artemyakkonen.aston_spring_boot.service.OutboxService;
 import com.artemyakkonen.aston_spring_boot.service.UserService;
 import com.artemyakkonen.aston_spring_boot.specification.UserSpecification;
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.core.UserDeletedEvent;
+import com.artemyakkonen.core.UserUpdatedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -42,7 +59,7 @@ import static org.mockito.Mockito.*;
 @ActiveProfiles("test")
 class UserServiceTest {
     @Mock
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private OutboxService outboxService;
 
     @Mock
     private UserRepository userRepository;
@@ -53,6 +70,21 @@ class UserServiceTest {
     @Mock
     private UserSpecification userSpecification;
 
+    @Mock
+    private EmailExistenceFilter emailExistenceFilter;
+
+    @Mock
+    private NameNgramIndex nameNgramIndex;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private UserCacheInvalidator userCacheInvalidator;
+
+    @Spy
+    private UserCursorCodec userCursorCodec = new UserCursorCodec();
+
     @InjectMocks
     private UserService userService;
 
@@ -90,6 +122,7 @@ class UserServiceTest {
                 .name(JsonNullable.of("Jane Doe"))
                 .email(JsonNullable.of("jane.doe@example.com"))
                 .age(JsonNullable.of(30))
+                .version(0L)
                 .build();
     }
 
@@ -125,13 +158,36 @@ class UserServiceTest {
     }
 
     @Test
-    @DisplayName("Should create new user")
-    void shouldCreateUser() {
-        CompletableFuture<SendResult<String, Object>> successFuture =
-                CompletableFuture.completedFuture(mock(SendResult.class));
+    @DisplayName("Should take user version from the cache without querying")
+    void shouldFindUserVersionInCache() {
+        var cache = new ConcurrentMapCache(CacheConfig.USERS_CACHE);
+        var updatedAt = LocalDateTime.now();
+        cache.put(1L, UserDTO.builder().id(1L).version(3L).updatedAt(updatedAt).build());
+        when(cacheManager.getCache(CacheConfig.USERS_CACHE)).thenReturn(cache);
+
+        var result = userService.findUserVersion(1L);
+
+        assertThat(result).get().satisfies(version -> {
+            assertThat(version.getVersion()).isEqualTo(3L);
+            assertThat(version.getUpdatedAt()).isEqualTo(updatedAt);
+        });
+        verifyNoInteractions(userRepository);
+    }
 
-        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(successFuture);
+    @Test
+    @DisplayName("Should read only the user version on cache miss")
+    void shouldFindUserVersionInRepository() {
+        when(cacheManager.getCache(CacheConfig.USERS_CACHE)).thenReturn(new ConcurrentMapCache(CacheConfig.USERS_CACHE));
+        var version = new UserVersionDTO(1L, 2L, LocalDateTime.now());
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.of(version));
+
+        assertThat(userService.findUserVersion(1L)).contains(version);
+        verify(userRepository, never()).findById(anyLong());
+    }
 
+    @Test
+    @DisplayName("Should create new user")
+    void shouldCreateUser() {
         when(userMapper.map(testUserCreateDTO)).thenReturn(testUser);
         when(userRepository.save(testUser)).thenReturn(testUser);
         when(userMapper.map(testUser)).thenReturn(testUserDTO);
@@ -145,58 +201,52 @@ class UserServiceTest {
         verify(userMapper).map(testUserCreateDTO);
         verify(userRepository).save(testUser);
         verify(userMapper).map(testUser);
+        verify(outboxService).enqueue(eq("user-created-events-topic"), eq("1"), any(UserCreatedEvent.class));
     }
 
     @Test
     @DisplayName("Should delete user")
     void shouldDeleteUser() {
-        CompletableFuture<SendResult<String, Object>> successFuture =
-                CompletableFuture.completedFuture(mock(SendResult.class));
-
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(successFuture);
+        DeletedUserView deletedUser = mock(DeletedUserView.class);
+        when(deletedUser.getId()).thenReturn(1L);
+        when(deletedUser.getEmail()).thenReturn("john@example.com");
+        when(userRepository.deleteByIdReturning(1L)).thenReturn(Optional.of(deletedUser));
 
         userService.deleteUser(1L);
 
-        verify(userRepository).findById(1L);
-        verify(userRepository).deleteById(1L);
-        verify(kafkaTemplate).send(eq("user-deleted-events-topic"), eq("1"), any());
+        verify(userRepository).deleteByIdReturning(1L);
+        verify(userCacheInvalidator).invalidate(1L);
+        verify(userCacheInvalidator).invalidateEmail("john@example.com");
+        verify(userRepository, never()).findById(anyLong());
+        verify(userRepository, never()).deleteById(anyLong());
+        verify(outboxService).enqueue(eq("user-deleted-events-topic"), eq("1"), any(UserDeletedEvent.class));
     }
 
     @Test
     @DisplayName("Should throw exception when user not found when deleting")
     void shouldThrowExceptionWhenDeletingNonExistentUser() {
-        when(userRepository.findById(999L)).thenReturn(Optional.empty());
+        when(userRepository.deleteByIdReturning(999L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> userService.deleteUser(999L))
                 .isInstanceOf(UserNotFoundException.class)
                 .hasMessage("User with id 999 not found");
 
-        verify(userRepository).findById(999L);
-        verify(userRepository, never()).deleteById(anyLong());
-        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        verify(userRepository).deleteByIdReturning(999L);
+        verify(outboxService, never()).enqueue(anyString(), anyString(), any());
     }
 
     @Test
     @DisplayName("Should update user")
     void shouldUpdateUser() {
-        User updatedUser = User.builder()
-                .id(1L)
-                .name("Jane Doe")
-                .email("jane.doe@example.com")
-                .age(30)
-                .build();
-
         UserDTO updatedUserDTO = UserDTO.builder()
                 .id(1L)
                 .name("Jane Doe")
                 .email("jane.doe@example.com")
                 .age(30)
+                .version(1L)
                 .build();
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(userRepository.save(testUser)).thenReturn(updatedUser);
-        when(userMapper.map(updatedUser)).thenReturn(updatedUserDTO);
+        when(userRepository.updateReturning(eq(1L), eq(0L), anyMap())).thenReturn(Optional.of(updatedUserDTO));
 
         UserDTO result = userService.updateUser(1L, testUserUpdateDTO);
 
@@ -205,24 +255,94 @@ class UserServiceTest {
         assertThat(result.getEmail()).isEqualTo("jane.doe@example.com");
         assertThat(result.getAge()).isEqualTo(30);
 
-        verify(userRepository).findById(1L);
-        verify(userMapper).update(eq(testUserUpdateDTO), eq(testUser));
-        verify(userRepository).save(testUser);
-        verify(userMapper).map(updatedUser);
+        verify(userRepository).updateReturning(1L, 0L,
+                Map.of("name", "Jane Doe", "email", "jane.doe@example.com", "age", 30));
+        verify(userCacheInvalidator).invalidate(1L);
+        verify(userCacheInvalidator).invalidateEmails();
+        verify(userRepository, never()).findById(anyLong());
+        verify(userRepository, never()).save(any(User.class));
+        verify(outboxService).enqueue(eq("user-updated-events-topic"), eq("1"), any(UserUpdatedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should update only present fields")
+    void shouldUpdateOnlyPresentFields() {
+        UserUpdateDTO dto = UserUpdateDTO.builder()
+                .age(JsonNullable.of(31))
+                .version(2L)
+                .build();
+        when(userRepository.updateReturning(eq(1L), eq(2L), anyMap())).thenReturn(Optional.of(testUserDTO));
+
+        userService.updateUser(1L, dto);
+
+        verify(userRepository).updateReturning(1L, 2L, Map.of("age", 31));
+        verify(userCacheInvalidator).invalidate(1L);
+        verify(userCacheInvalidator, never()).invalidateEmails();
     }
 
     @Test
     @DisplayName("Should throw exception when user not found when updating")
     void shouldThrowExceptionWhenUpdatingNonExistentUser() {
-        when(userRepository.findById(999L)).thenReturn(Optional.empty());
+        when(userRepository.updateReturning(eq(999L), eq(0L), anyMap())).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> userService.updateUser(999L, testUserUpdateDTO))
                 .isInstanceOf(UserNotFoundException.class)
                 .hasMessage("User with id 999 not found");
 
-        verify(userRepository).findById(999L);
-        verify(userMapper, never()).update(any(), any());
-        verify(userRepository, never()).save(any(User.class));
+        verify(outboxService, never()).enqueue(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should fail with version conflict when user was modified concurrently")
+    void shouldFailOnVersionConflict() {
+        testUserUpdateDTO.setVersion(3L);
+        when(userRepository.updateReturning(eq(1L), eq(3L), anyMap())).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> userService.updateUser(1L, testUserUpdateDTO))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        verify(outboxService, never()).enqueue(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should require the version the update is based on")
+    void shouldRequireVersionOnUpdate() {
+        testUserUpdateDTO.setVersion(null);
+
+        assertThatThrownBy(() -> userService.updateUser(1L, testUserUpdateDTO))
+                .isInstanceOf(VersionRequiredException.class);
+
+        verify(userRepository, never()).updateReturning(anyLong(), any(), anyMap());
+        verify(outboxService, never()).enqueue(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should return the user unchanged when the update has no fields")
+    void shouldSkipUpdateWithoutFields() {
+        testUserDTO.setVersion(2L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userMapper.map(testUser)).thenReturn(testUserDTO);
+
+        UserDTO result = userService.updateUser(1L, UserUpdateDTO.builder().version(2L).build());
+
+        assertThat(result).isSameAs(testUserDTO);
+        verify(userRepository, never()).updateReturning(anyLong(), any(), anyMap());
+        verifyNoInteractions(userCacheInvalidator, outboxService);
+    }
+
+    @Test
+    @DisplayName("Should fail with version conflict when the update without fields is based on an old version")
+    void shouldFailOnVersionConflictWithoutFields() {
+        testUserDTO.setVersion(3L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userMapper.map(testUser)).thenReturn(testUserDTO);
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> userService.updateUser(1L, UserUpdateDTO.builder().version(2L).build()))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        verify(userRepository, never()).updateReturning(anyLong(), any(), anyMap());
     }
 
     @Test
@@ -234,13 +354,10 @@ class UserServiceTest {
         params.setPage(0);
         params.setSize(10);
 
-        List<User> users = List.of(testUser);
-        List<UserDTO> userDTOs = List.of(testUserDTO);
-        Page<User> userPage = new PageImpl<>(users);
+        Page<UserDTO> userPage = new PageImpl<>(List.of(testUserDTO));
 
         when(userSpecification.build(params)).thenReturn(mock(Specification.class));
-        when(userRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(userPage);
-        when(userMapper.fromUsers(users)).thenReturn(userDTOs);
+        when(userRepository.findAllProjected(any(Specification.class), any(Pageable.class))).thenReturn(userPage);
 
         List<UserDTO> result = userService.findAllUsers(params);
 
@@ -249,7 +366,53 @@ class UserServiceTest {
         assertThat(result.get(0)).isEqualTo(testUserDTO);
 
         verify(userSpecification).build(params);
-        verify(userRepository).findAll(any(Specification.class), any(Pageable.class));
-        verify(userMapper).fromUsers(users);
+        verify(userRepository).findAllProjected(any(Specification.class), any(Pageable.class));
+        verify(userRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+        verifyNoInteractions(userMapper);
+    }
+
+    @Test
+    @DisplayName("Should scroll users with keyset and return next cursor")
+    void shouldScrollUsersWithKeyset() {
+        UserParamsDTO params = new UserParamsDTO();
+        params.setPaging("keyset");
+        params.setSize(1);
+
+        List<User> users = List.of(testUser);
+        List<UserDTO> userDTOs = List.of(testUserDTO);
+
+        when(userSpecification.build(params)).thenReturn(mock(Specification.class));
+        when(userRepository.findBy(any(Specification.class), any()))
+                .thenReturn(Window.from(users, index -> ScrollPosition.keyset(), true));
+        when(userMapper.fromUsers(users)).thenReturn(userDTOs);
+
+        UserSliceDTO result = userService.scrollUsers(params);
+
+        assertThat(result.getUsers()).containsExactly(testUserDTO);
+        assertThat(result.getNextCursor()).isNotNull();
+
+        params.setAfter(result.getNextCursor());
+        assertThat(userCursorCodec.decode(params).getKeys())
+                .containsEntry("createdAt", testUserDTO.getCreatedAt())
+                .containsEntry("id", 1L);
+        verify(userRepository, never()).findAllProjected(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should not return cursor on the last keyset slice")
+    void shouldNotReturnCursorOnLastSlice() {
+        UserParamsDTO params = new UserParamsDTO();
+        params.setPaging("keyset");
+
+        List<User> users = List.of(testUser);
+
+        when(userSpecification.build(params)).thenReturn(mock(Specification.class));
+        when(userRepository.findBy(any(Specification.class), any()))
+                .thenReturn(Window.from(users, index -> ScrollPosition.keyset(), false));
+        when(userMapper.fromUsers(users)).thenReturn(List.of(testUserDTO));
+
+        UserSliceDTO result = userService.scrollUsers(params);
+
+        assertThat(result.getNextCursor()).isNull();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.artemyakkonen.aston_spring_boot.web;
 
+import com.artemyakkonen.aston_spring_boot.controller.UserController;
 import com.artemyakkonen.aston_spring_boot.dto.UserCreateDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
 import com.artemyakkonen.aston_spring_boot.dto.UserUpdateDTO;
@@ -16,6 +17,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 
 import org.springframework.hateoas.EntityModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.context.ActiveProfiles;
@@ -32,6 +34,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
@@ -130,6 +134,42 @@ class UserControllerTest {
         assertThat(responseUser.getEmail()).isEqualTo("zaur@tregulov.ru");
         assertThat(responseUser.getAge()).isEqualTo(35);
         assertThat(responseUser.getCreatedAt()).isNotNull();
+        assertThat(responseUser.getVersion()).isEqualTo(testUser.getVersion() + 1);
+    }
+
+    @Test
+    @DisplayName("PUT /api/users/{id} - Should reject update based on a stale version")
+    void shouldRejectStaleUpdate() throws Exception {
+        var userUpdateDTO = UserUpdateDTO.builder()
+                .name(JsonNullable.of("ArtemStale"))
+                .version(testUser.getVersion() + 5)
+                .build();
+
+        mockMvc.perform(put("/api/users/{id}", testUser.getId())
+                        .content(om.writeValueAsString(userUpdateDTO))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("VERSION_CONFLICT"));
+
+        assertThat(userRepository.findById(testUser.getId())).get()
+                .extracting(User::getName).isEqualTo("Artem");
+    }
+
+    @Test
+    @DisplayName("PUT /api/users/{id} - Should require the version the update is based on")
+    void shouldRequireVersionOnUpdate() throws Exception {
+        var userUpdateDTO = UserUpdateDTO.builder()
+                .name(JsonNullable.of("ArtemUnversioned"))
+                .build();
+
+        mockMvc.perform(put("/api/users/{id}", testUser.getId())
+                        .content(om.writeValueAsString(userUpdateDTO))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionRequired())
+                .andExpect(jsonPath("$.code").value("VERSION_REQUIRED"));
+
+        assertThat(userRepository.findById(testUser.getId())).get()
+                .extracting(User::getName).isEqualTo("Artem");
     }
 
     @Test
@@ -155,11 +195,73 @@ class UserControllerTest {
         assertThat(responseUser.getCreatedAt()).isNotNull();
     }
 
+    @Test
+    @DisplayName("GET /api/users/{id} - Should return 304 while the ETag matches")
+    void shouldReturnNotModifiedUser() throws Exception {
+        var eTag = mockMvc.perform(get("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/users/{id}", testUser.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/api/users/{id}", testUser.getId())
+                        .content(om.writeValueAsString(UserUpdateDTO.builder().age(JsonNullable.of(27)).build()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, eTag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/users/{id}", testUser.getId())
+                        .content(om.writeValueAsString(UserUpdateDTO.builder().age(JsonNullable.of(28)).build()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, eTag))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("VERSION_CONFLICT"));
+
+        mockMvc.perform(get("/api/users/{id}", testUser.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.age").value(27));
+    }
+
+    @Test
+    @DisplayName("GET /api/users - Should return 304 for an unchanged page")
+    void shouldReturnNotModifiedPage() throws Exception {
+        var eTag = mockMvc.perform(get("/api/users"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/users").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api/users")
+                        .accept(UserController.LEAN_JSON_VALUE)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/users/{id}", testUser.getId())
+                        .content(om.writeValueAsString(UserUpdateDTO.builder()
+                                .age(JsonNullable.of(27))
+                                .version(testUser.getVersion())
+                                .build()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/users").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
     @Test
     @DisplayName("PUT /api/users/{id} - Should update user by ID and return DTO")
     void shouldUpdateUser() throws Exception {
         var userUpdateDTO = UserUpdateDTO.builder()
                 .name(JsonNullable.of("ArtemUpdated"))
+                .version(testUser.getVersion())
                 .build();
 
         var result = mockMvc.perform(put("/api/users/{id}", testUser.getId())
@@ -195,6 +297,20 @@ class UserControllerTest {
         assertThat(user).isEmpty();
     }
 
+    @Test
+    @DisplayName("DELETE /api/users?ids= - Should delete users by ids")
+    void shouldDeleteUsersByIds() throws Exception {
+        long missingId = testUser2.getId() + 1000;
+
+        mockMvc.perform(delete("/api/users")
+                        .param("ids", testUser.getId() + "," + testUser2.getId() + "," + missingId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted.length()").value(2))
+                .andExpect(jsonPath("$.notFound[0]").value(missingId));
+
+        assertThat(userRepository.count()).isZero();
+    }
+
     @Test
     @DisplayName("GET /api/users - Should return all users")
     void shouldGetAllUsers() throws Exception {
@@ -221,4 +337,21 @@ class UserControllerTest {
         assertThat(responseUsers[1].getName()).isEqualTo("Nail");
     }
 
+    @Test
+    @DisplayName("GET /api/users - Should return plain array for lean media type")
+    void shouldGetAllUsersLean() throws Exception {
+        mockMvc.perform(get("/api/users")
+                        .accept(UserController.LEAN_JSON_VALUE)
+                        .param("paging", "keyset")
+                        .param("size", "1")
+                        .param("sortBy", "id")
+                        .param("sortDirection", "asc"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(UserController.LEAN_JSON_VALUE))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Artem"))
+                .andExpect(jsonPath("$[0]._links").doesNotExist())
+                .andExpect(header().string("Link", containsString("rel=\"next\"")));
+    }
+
 }
@@ -0,0 +1,94 @@
+package com.artemyakkonen.benchmarks;
+
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.core.UserDeletedEvent;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event (de)serialization as configured in the KafkaConfig classes: the UserService producer uses
+ * {@link JsonSerializer} with type headers, the consumers an {@link ErrorHandlingDeserializer} delegating
+ * to a {@link JsonDeserializer} that trusts {@code com.artemyakkonen.core}.
+ * <p>
+ * Every deserialization gets a copy of the headers, the deserializer removes the type headers it has read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventSerializationBenchmark {
+    private static final String TOPIC = "user-created-events-topic";
+
+    private JsonSerializer<Object> serializer;
+    private ErrorHandlingDeserializer<Object> deserializer;
+
+    private UserCreatedEvent userCreatedEvent;
+    private UserDeletedEvent userDeletedEvent;
+    private RecordHeaders userCreatedHeaders;
+    private RecordHeaders userDeletedHeaders;
+    private byte[] userCreatedPayload;
+    private byte[] userDeletedPayload;
+
+    @Setup
+    public void setUp() {
+        serializer = new JsonSerializer<>();
+        serializer.configure(Map.of(), false);
+
+        deserializer = new ErrorHandlingDeserializer<>();
+        deserializer.configure(Map.of(
+                ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class,
+                JsonDeserializer.TRUSTED_PACKAGES, "com.artemyakkonen.core"), false);
+
+        userCreatedEvent = UserCreatedEvent.builder()
+                .id(1L)
+                .name("John Doe")
+                .email("john.doe@example.com")
+                .age(25)
+                .createdAt(LocalDateTime.now())
+                .build();
+        userDeletedEvent = UserDeletedEvent.builder()
+                .id(1L)
+                .email("john.doe@example.com")
+                .build();
+
+        userCreatedHeaders = new RecordHeaders();
+        userCreatedPayload = serializer.serialize(TOPIC, userCreatedHeaders, userCreatedEvent);
+        userDeletedHeaders = new RecordHeaders();
+        userDeletedPayload = serializer.serialize(TOPIC, userDeletedHeaders, userDeletedEvent);
+    }
+
+    @TearDown
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serializeUserCreated() {
+        return serializer.serialize(TOPIC, new RecordHeaders(), userCreatedEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeUserDeleted() {
+        return serializer.serialize(TOPIC, new RecordHeaders(), userDeletedEvent);
+    }
+
+    @Benchmark
+    public Object deserializeUserCreated() {
+        return deserializer.deserialize(TOPIC, new RecordHeaders(userCreatedHeaders.toArray()), userCreatedPayload);
+    }
+
+    @Benchmark
+    public Object deserializeUserDeleted() {
+        return deserializer.deserialize(TOPIC, new RecordHeaders(userDeletedHeaders.toArray()), userDeletedPayload);
+    }
+}
@@ -0,0 +1,57 @@
+package com.artemyakkonen.benchmarks;
+
+import com.artemyakkonen.core.UserCreatedEvent;
+import com.artemyakkonen.emailnotificationmicroservice.handler.UserNotifications;
+import com.artemyakkonen.emailnotificationmicroservice.sender.EmailMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of the user created notification from the compiled templates, per locale, next to the
+ * String.format construction it replaced. At 10k notifications per second a sender thread has
+ * 100 µs per email, so rendering should stay far below a microsecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationTemplateBenchmark {
+
+    @Param({"en", "ru", "ru-RU"})
+    private String locale;
+
+    private UserNotifications userNotifications;
+    private Locale requestedLocale;
+    private UserCreatedEvent event;
+
+    @Setup
+    public void setUp() {
+        userNotifications = new UserNotifications(List.of(Locale.ENGLISH, Locale.of("ru")), Locale.ENGLISH);
+        requestedLocale = Locale.forLanguageTag(locale);
+        event = UserCreatedEvent.builder()
+                .id(42L)
+                .name("John Doe")
+                .email("john.doe@example.com")
+                .age(30)
+                .build();
+    }
+
+    @Benchmark
+    public EmailMessage render() {
+        return userNotifications.created(event, requestedLocale);
+    }
+
+    @Benchmark
+    public EmailMessage format() {
+        return EmailMessage.builder()
+                .to(event.getEmail())
+                .subject("Welcome, " + event.getName())
+                .body(String.format("Hello, %s! Your account has been created.", event.getName()))
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.artemyakkonen.benchmarks;
+
+import com.artemyakkonen.aston_spring_boot.controller.UserController;
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.hateoas.UserDTOModelAssembler;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * One operation is one {@code GET /api/users?size=500} response: assembling the models of a page
+ * and, for the serialize benchmarks, writing HAL or the lean array.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserLinksBenchmark {
+    @Param({"20", "500"})
+    private int pageSize;
+
+    private List<UserDTO> users;
+    private UserDTOModelAssembler assembler;
+    private ObjectMapper halMapper;
+    private ObjectMapper jsonMapper;
+
+    @Setup
+    public void setUp() {
+        users = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> UserDTO.builder()
+                        .id(id)
+                        .name("User " + id)
+                        .email("user" + id + "@example.com")
+                        .age(18 + (int) (id % 60))
+                        .createdAt(LocalDateTime.now())
+                        .version(0L)
+                        .build())
+                .toList();
+        assembler = new UserDTOModelAssembler();
+
+        jsonMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        halMapper = jsonMapper.copy().registerModule(new Jackson2HalModule());
+        halMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.of(null)));
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<UserDTO>> methodOnPerElement() {
+        return inRequest(() -> CollectionModel.of(users.stream()
+                .map(userDTO -> EntityModel.of(userDTO,
+                        linkTo(methodOn(UserController.class).getUser(userDTO.getId(), null)).withSelfRel(),
+                        linkTo(methodOn(UserController.class).getAllUses(null, null)).withRel("users")))
+                .toList()));
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<UserDTO>> precomputedLinks() {
+        return inRequest(() -> CollectionModel.of(users.stream().map(assembler::toModel).toList()));
+    }
+
+    @Benchmark
+    public String serializeHal() throws JsonProcessingException {
+        return halMapper.writeValueAsString(precomputedLinks());
+    }
+
+    @Benchmark
+    public String serializeLean() throws JsonProcessingException {
+        return jsonMapper.writeValueAsString(users);
+    }
+
+    private static <T> T inRequest(Supplier<T> work) {
+        var request = new MockHttpServletRequest("GET", "/api/users");
+        request.setServerName("users.example.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            return work.get();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.artemyakkonen.benchmarks;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserDTO;
+import com.artemyakkonen.aston_spring_boot.mapper.UserMapper;
+import com.artemyakkonen.aston_spring_boot.mapper.UserMapperImpl;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * MapStruct entity to DTO mapping, as done by {@code findUser} (one user) and {@code scrollUsers} (a page).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMapperBenchmark {
+    @Param({"20", "500"})
+    private int pageSize;
+
+    private UserMapper userMapper;
+    private User user;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        userMapper = new UserMapperImpl();
+        users = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> User.builder()
+                        .id(id)
+                        .name("User " + id)
+                        .email("user" + id + "@example.com")
+                        .age(18 + (int) (id % 60))
+                        .createdAt(LocalDateTime.now())
+                        .updatedAt(LocalDateTime.now())
+                        .version(0L)
+                        .build())
+                .toList();
+        user = users.get(0);
+    }
+
+    @Benchmark
+    public UserDTO map() {
+        return userMapper.map(user);
+    }
+
+    @Benchmark
+    public List<UserDTO> fromUsers() {
+        return userMapper.fromUsers(users);
+    }
+}
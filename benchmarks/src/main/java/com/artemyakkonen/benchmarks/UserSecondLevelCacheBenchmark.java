@@ -0,0 +1,96 @@
+package com.artemyakkonen.benchmarks;
+
+import com.artemyakkonen.aston_spring_boot.config.SecondLevelCacheConfig;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.H2Dialect;
+import org.openjdk.jmh.annotations.*;
+
+import javax.cache.CacheManager;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of a user by id and by email natural id, each in its own session as a request would do,
+ * with and without the second-level cache. The data is the repository test users repeated
+ * {@code users / 3} times in an in-memory H2 database, so the uncached numbers are a lower bound
+ * for a networked Postgres.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserSecondLevelCacheBenchmark {
+    private static final String[][] USERS = {
+            {"John Doe", "john.doe"},
+            {"Jane Smith", "jane.smith"},
+            {"Bob Johnson", "bob.johnson"}
+    };
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    @Param({"3000"})
+    private int users;
+
+    private CacheManager cacheManager;
+    private SessionFactory sessionFactory;
+    private Long[] ids;
+    private String[] emails;
+
+    @Setup
+    public void setUp() {
+        var configuration = new Configuration()
+                .addAnnotatedClass(User.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:l2-" + UUID.randomUUID())
+                .setProperty(AvailableSettings.DIALECT, H2Dialect.class.getName())
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        if (cached) {
+            cacheManager = SecondLevelCacheConfig.cacheManager(
+                    SecondLevelCacheConfig.region(users, 600_000, false), SecondLevelCacheConfig.region(users, 600_000, false));
+            SecondLevelCacheConfig.hibernateProperties(cacheManager).forEach(configuration.getProperties()::put);
+        }
+        sessionFactory = configuration.buildSessionFactory();
+
+        ids = new Long[users];
+        emails = new String[users];
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < users; i++) {
+                var template = USERS[i % USERS.length];
+                var user = new User(null, template[0], template[1] + i + "@example.com", 20 + i % 50);
+                session.persist(user);
+                emails[i] = user.getEmail();
+            }
+        });
+        sessionFactory.inSession(session -> {
+            for (int i = 0; i < users; i++) {
+                ids[i] = session.bySimpleNaturalId(User.class).load(emails[i]).getId();
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+        if (cacheManager != null) {
+            cacheManager.close();
+        }
+    }
+
+    @Benchmark
+    public User findById() {
+        var id = ids[ThreadLocalRandom.current().nextInt(users)];
+        return sessionFactory.fromTransaction(session -> session.find(User.class, id));
+    }
+
+    @Benchmark
+    public User findByNaturalId() {
+        var email = emails[ThreadLocalRandom.current().nextInt(users)];
+        return sessionFactory.fromTransaction(session -> session.bySimpleNaturalId(User.class).load(email));
+    }
+}
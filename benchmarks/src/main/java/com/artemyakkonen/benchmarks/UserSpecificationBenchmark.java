@@ -0,0 +1,84 @@
+package com.artemyakkonen.benchmarks;
+
+import com.artemyakkonen.aston_spring_boot.dto.UserParamsDTO;
+import com.artemyakkonen.aston_spring_boot.model.User;
+import com.artemyakkonen.aston_spring_boot.search.NameNgramIndex;
+import com.artemyakkonen.aston_spring_boot.specification.UserSpecification;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code UserSpecification.build} plus predicate construction against a Hibernate criteria query,
+ * for every combination of the five filters. {@code filters} is a bit mask:
+ * 1 name, 2 ageGt, 4 ageLt, 8 createdAtGt, 16 createdAtLt.
+ * <p>
+ * Hibernate is bootstrapped without a database: the dialect is fixed and JDBC metadata access is off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserSpecificationBenchmark {
+    @Param({"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15",
+            "16", "17", "18", "19", "20", "21", "22", "23", "24", "25", "26", "27", "28", "29", "30", "31"})
+    private int filters;
+
+    private UserSpecification userSpecification;
+    private UserParamsDTO params;
+    private SessionFactory sessionFactory;
+    private EntityManager entityManager;
+
+    @Setup
+    public void setUp() {
+        userSpecification = new UserSpecification(new NameNgramIndex(null, null, false, 2, 10000));
+
+        params = new UserParamsDTO();
+        if ((filters & 1) != 0) {
+            params.setName("John");
+        }
+        if ((filters & 2) != 0) {
+            params.setAgeGt(18);
+        }
+        if ((filters & 4) != 0) {
+            params.setAgeLt(65);
+        }
+        if ((filters & 8) != 0) {
+            params.setCreatedAtGt(LocalDateTime.of(2025, 1, 1, 0, 0));
+        }
+        if ((filters & 16) != 0) {
+            params.setCreatedAtLt(LocalDateTime.of(2025, 12, 31, 0, 0));
+        }
+
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(User.class)
+                .setProperty(AvailableSettings.DIALECT, PostgreSQLDialect.class.getName())
+                .setProperty(AvailableSettings.ALLOW_METADATA_ON_BOOT, "false")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "none")
+                .buildSessionFactory();
+        entityManager = sessionFactory.createEntityManager();
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Predicate buildPredicate() {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(User.class);
+        var root = query.from(User.class);
+        return userSpecification.build(params).toPredicate(root, query, cb);
+    }
+}
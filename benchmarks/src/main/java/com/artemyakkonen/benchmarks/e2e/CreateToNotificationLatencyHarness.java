@@ -0,0 +1,176 @@
+package com.artemyakkonen.benchmarks.e2e;
+
+import com.artemyakkonen.aston_spring_boot.UserServiceApplication;
+import com.artemyakkonen.emailnotificationmicroservice.EmailNotificationMicroserviceApplication;
+import com.artemyakkonen.emailnotificationmicroservice.parallel.KeyOrderedParallelConsumer;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.AbstractKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load harness for the create-to-notification path: {@code POST /api/users} → outbox → relay →
+ * user-created-events-topic → EmailNotificationMicroservice UserEventsHandler, or UserEventsBatchHandler
+ * and UserEventsParallelHandler in batch and parallel listener mode. Both services run in this JVM against
+ * an embedded KRaft cluster and an in-memory H2 database in PostgreSQL mode, so no cluster or container
+ * is needed.
+ * <p>
+ * Settings are system properties:
+ * <ul>
+ *     <li>{@code harness.rate} requests per second, default 100</li>
+ *     <li>{@code harness.warmup-seconds}, default 10, and {@code harness.duration-seconds}, default 60</li>
+ *     <li>{@code harness.brokers}, {@code harness.partitions}, {@code harness.replicas}, default 3 each</li>
+ *     <li>{@code harness.completion-timeout-seconds} to wait for outstanding notifications, default 30</li>
+ * </ul>
+ * Any other system property, e.g. {@code -Dapp.outbox.relay.poll-interval-ms=10} or
+ * {@code -Dapp.kafka.listener.mode=batch}, overrides the service configuration.
+ */
+public final class CreateToNotificationLatencyHarness {
+    private static final List<String> TOPICS = List.of(
+            "user-created-events-topic",
+            "user-updated-events-topic",
+            "user-deleted-events-topic",
+            "email-requested-topic");
+
+    private CreateToNotificationLatencyHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("harness.rate", "100"));
+        long warmupSeconds = Long.getLong("harness.warmup-seconds", 10);
+        long durationSeconds = Long.getLong("harness.duration-seconds", 60);
+        int brokers = Integer.getInteger("harness.brokers", 3);
+        int partitions = Integer.getInteger("harness.partitions", 3);
+        int replicas = Integer.getInteger("harness.replicas", Math.min(3, brokers));
+        long completionTimeoutSeconds = Long.getLong("harness.completion-timeout-seconds", 30);
+
+        var broker = new EmbeddedKafkaKraftBroker(brokers, partitions);
+        broker.afterPropertiesSet();
+        broker.addTopics(TOPICS.stream()
+                .map(topic -> new NewTopic(topic, partitions, (short) replicas)
+                        .configs(Map.of("min.insync.replicas", String.valueOf(Math.min(2, replicas)))))
+                .toArray(NewTopic[]::new));
+
+        var tracker = new LatencyTracker();
+        try (var emailService = startEmailService(broker.getBrokersAsString(), tracker);
+             var userService = startUserService(broker.getBrokersAsString())) {
+            awaitUserEventsAssignment(emailService, partitions);
+
+            int port = ((WebServerApplicationContext) userService).getWebServer().getPort();
+            var driver = new OpenLoopDriver(URI.create("http://localhost:" + port + "/api/users"), rate, tracker);
+
+            System.out.printf("Brokers: %d, partitions: %d, replicas: %d, rate: %.0f req/s%n",
+                    brokers, partitions, replicas, rate);
+            System.out.printf("Warming up for %d s%n", warmupSeconds);
+            driver.run(warmupSeconds, TimeUnit.SECONDS);
+            tracker.awaitCompleted(completionTimeoutSeconds, TimeUnit.SECONDS);
+            tracker.reset();
+
+            System.out.printf("Measuring for %d s%n", durationSeconds);
+            long sent = driver.run(durationSeconds, TimeUnit.SECONDS);
+            int missing = tracker.awaitCompleted(completionTimeoutSeconds, TimeUnit.SECONDS);
+            System.out.printf("Requests sent: %d%n", sent);
+            tracker.report(System.out, missing);
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    private static ConfigurableApplicationContext startUserService(String bootstrapServers) {
+        return new SpringApplicationBuilder(UserServiceApplication.class)
+                .run(arguments(Map.ofEntries(
+                        Map.entry("server.port", "0"),
+                        Map.entry("spring.kafka.bootstrap-servers", bootstrapServers),
+                        Map.entry("spring.kafka.admin.auto-create", "false"),
+                        Map.entry("spring.datasource.driver-class-name", "org.h2.Driver"),
+                        Map.entry("spring.datasource.url",
+                                "jdbc:h2:mem:users;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+                        Map.entry("spring.datasource.username", "sa"),
+                        Map.entry("spring.datasource.password", ""),
+                        Map.entry("spring.jpa.hibernate.ddl-auto", "create-drop"),
+                        Map.entry("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect"),
+                        Map.entry("spring.jpa.properties.hibernate.show_sql", "false"),
+                        Map.entry("spring.jpa.open-in-view", "false"),
+                        Map.entry("spring.sql.init.mode", "never"),
+                        Map.entry("logging.level.root", "warn"))));
+    }
+
+    /**
+     * EmailNotificationMicroservice reads no config file here, the application.yml on the classpath is
+     * UserService's; everything it needs is passed explicitly.
+     */
+    private static ConfigurableApplicationContext startEmailService(String bootstrapServers, LatencyTracker tracker) {
+        return new SpringApplicationBuilder(EmailNotificationMicroserviceApplication.class)
+                .initializers(context -> context.getBeanFactory().addBeanPostProcessor(interceptListeners(tracker)))
+                .run(arguments(Map.ofEntries(
+                        Map.entry("spring.config.name", "email-notification-harness"),
+                        Map.entry("server.port", "0"),
+                        Map.entry("spring.kafka.consumer.bootstrap-servers", bootstrapServers),
+                        Map.entry("spring.kafka.admin.bootstrap-servers", bootstrapServers),
+                        Map.entry("spring.kafka.consumer.properties.spring.json.trusted.packages", "com.artemyakkonen.core"),
+                        Map.entry("app.kafka.email-requests.concurrency", "3"),
+                        Map.entry("app.kafka.email-requests.max-poll-records", "500"),
+                        Map.entry("app.kafka.listener.mode", "record"),
+                        Map.entry("app.kafka.user-events.concurrency", "1"),
+                        Map.entry("app.kafka.user-events.max-poll-records", "500"),
+                        Map.entry("app.kafka.user-events.parallel.max-in-flight", "256"),
+                        Map.entry("app.kafka.user-events.parallel.poll-timeout-ms", "100"),
+                        Map.entry("logging.level.root", "warn"))));
+    }
+
+    /**
+     * Harness settings go in as command line arguments, which win over the application.yml on the
+     * classpath; a key already given as a system property is left out so that it still applies.
+     */
+    private static String[] arguments(Map<String, String> properties) {
+        return properties.entrySet().stream()
+                .filter(property -> System.getProperty(property.getKey()) == null)
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    }
+
+    private static BeanPostProcessor interceptListeners(LatencyTracker interceptor) {
+        return new BeanPostProcessor() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof AbstractKafkaListenerContainerFactory<?, ?, ?> factory) {
+                    var listenerFactory = (AbstractKafkaListenerContainerFactory<?, String, Object>) factory;
+                    listenerFactory.setRecordInterceptor(interceptor);
+                    listenerFactory.setBatchInterceptor(interceptor);
+                }
+                if (bean instanceof KeyOrderedParallelConsumer<?, ?> consumer) {
+                    ((KeyOrderedParallelConsumer<String, Object>) consumer).setRecordInterceptor(interceptor);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static void awaitUserEventsAssignment(ConfigurableApplicationContext emailService, int partitions)
+            throws InterruptedException {
+        emailService.getBean(KafkaListenerEndpointRegistry.class).getListenerContainers().stream()
+                .filter(container -> "user-events".equals(container.getGroupId()))
+                .forEach(container -> ContainerTestUtils.waitForAssignment(container, 2 * partitions));
+        for (var consumer : emailService.getBeansOfType(KeyOrderedParallelConsumer.class).values()) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (consumer.getAssignment().size() < 2 * partitions) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Partitions of " + consumer.getGroupId() + " not assigned in time");
+                }
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+        }
+    }
+}
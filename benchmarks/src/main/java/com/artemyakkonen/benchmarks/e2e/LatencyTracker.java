@@ -0,0 +1,120 @@
+package com.artemyakkonen.benchmarks.e2e;
+
+import com.artemyakkonen.core.UserCreatedEvent;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Correlates created users with their notifications by email. A request is started at its intended
+ * send time and completed when EmailNotificationMicroservice's UserEventsHandler returned for its
+ * UserCreatedEvent, or UserEventsBatchHandler for its whole poll in batch listener mode, so queueing
+ * in front of a saturated service counts towards the latency.
+ * Values are recorded in microseconds.
+ */
+class LatencyTracker implements RecordInterceptor<String, Object>, BatchInterceptor<String, Object> {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    private final Histogram acceptLatency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram endToEndLatency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final LongAdder failedRequests = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    void started(String email, long intendedStartNanos) {
+        pending.put(email, intendedStartNanos);
+        inFlight.incrementAndGet();
+    }
+
+    void accepted(String email, long intendedStartNanos, boolean success) {
+        inFlight.decrementAndGet();
+        if (!success) {
+            pending.remove(email);
+            failedRequests.increment();
+            return;
+        }
+        record(acceptLatency, intendedStartNanos);
+    }
+
+    @Override
+    public ConsumerRecord<String, Object> intercept(ConsumerRecord<String, Object> record,
+                                                    Consumer<String, Object> consumer) {
+        return record;
+    }
+
+    @Override
+    public void success(ConsumerRecord<String, Object> record, Consumer<String, Object> consumer) {
+        if (record.value() instanceof UserCreatedEvent userCreatedEvent) {
+            Long intendedStartNanos = pending.remove(userCreatedEvent.getEmail());
+            if (intendedStartNanos != null) {
+                record(endToEndLatency, intendedStartNanos);
+            }
+        }
+    }
+
+    @Override
+    public ConsumerRecords<String, Object> intercept(ConsumerRecords<String, Object> records,
+                                                     Consumer<String, Object> consumer) {
+        return records;
+    }
+
+    @Override
+    public void success(ConsumerRecords<String, Object> records, Consumer<String, Object> consumer) {
+        records.forEach(record -> success(record, consumer));
+    }
+
+    /**
+     * Waits until every response has arrived and every accepted request got its notification.
+     *
+     * @return the number of requests still without a notification
+     */
+    int awaitCompleted(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while ((inFlight.get() > 0 || !pending.isEmpty()) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        return pending.size();
+    }
+
+    void reset() {
+        pending.clear();
+        acceptLatency.reset();
+        endToEndLatency.reset();
+        failedRequests.reset();
+    }
+
+    void report(PrintStream out, int missing) {
+        out.printf("%nRequests failed: %d, without response: %d, notifications missing: %d%n",
+                failedRequests.sum(), inFlight.get(), missing);
+        summary(out, "HTTP accept", acceptLatency);
+        summary(out, "Create to notification", endToEndLatency);
+        out.printf("%nCreate to notification, percentile distribution (ms):%n");
+        endToEndLatency.outputPercentileDistribution(out, 1000.0);
+    }
+
+    private static void summary(PrintStream out, String name, Histogram histogram) {
+        out.printf("%-24s count=%d p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n", name,
+                histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static void record(Histogram histogram, long intendedStartNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStartNanos);
+        histogram.recordValue(Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS));
+    }
+}
@@ -0,0 +1,67 @@
+package com.artemyakkonen.benchmarks.e2e;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends {@code POST /api/users} at a fixed rate, independent of how fast responses come back.
+ * Request i is due at start + i / rate; its latency is measured from that time, not from when
+ * the client actually managed to send it.
+ */
+class OpenLoopDriver {
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong sequence = new AtomicLong();
+    private final URI usersUri;
+    private final double rate;
+    private final LatencyTracker tracker;
+
+    OpenLoopDriver(URI usersUri, double rate, LatencyTracker tracker) {
+        this.usersUri = usersUri;
+        this.rate = rate;
+        this.tracker = tracker;
+    }
+
+    /**
+     * @return the number of requests sent
+     */
+    long run(long duration, TimeUnit unit) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long durationNanos = unit.toNanos(duration);
+        long start = System.nanoTime();
+
+        long sent = 0;
+        for (long intended = start; intended - start < durationNanos; intended += intervalNanos) {
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            send(intended);
+            sent++;
+        }
+        return sent;
+    }
+
+    private void send(long intendedStartNanos) {
+        long id = sequence.incrementAndGet();
+        String email = "load-" + id + "@example.com";
+        var request = HttpRequest.newBuilder(usersUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"name\":\"Load " + id + "\",\"email\":\"" + email + "\",\"age\":30}"))
+                .build();
+
+        tracker.started(email, intendedStartNanos);
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) ->
+                        tracker.accepted(email, intendedStartNanos, error == null && response.statusCode() == 201));
+    }
+}
@@ -0,0 +1,78 @@
+package com.artemyakkonen.core;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+public class EmailRequestedEvent {
+    private String eventId;
+    private LocalDateTime eventTimestamp;
+    private String email;
+    private String message;
+
+    public EmailRequestedEvent() {
+    }
+
+    private EmailRequestedEvent(String email, String message) {
+        this.eventId = UUID.randomUUID().toString();
+        this.eventTimestamp = LocalDateTime.now();
+        this.email = email;
+        this.message = message;
+    }
+
+    public String getEventId() { return eventId; }
+    public LocalDateTime getEventTimestamp() { return eventTimestamp; }
+    public String getEmail() { return email; }
+    public String getMessage() { return message; }
+
+    public void setEventId(String eventId) { this.eventId = eventId; }
+    public void setEventTimestamp(LocalDateTime eventTimestamp) { this.eventTimestamp = eventTimestamp; }
+    public void setEmail(String email) { this.email = email; }
+    public void setMessage(String message) { this.message = message; }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private String email;
+        private String message;
+
+        public Builder email(String email) {
+            this.email = email;
+            return this;
+        }
+
+        public Builder message(String message) {
+            this.message = message;
+            return this;
+        }
+
+        public EmailRequestedEvent build() {
+            return new EmailRequestedEvent(email, message);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EmailRequestedEvent that = (EmailRequestedEvent) o;
+        return Objects.equals(eventId, that.eventId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventId);
+    }
+
+    @Override
+    public String toString() {
+        return "EmailRequestedEvent{" +
+                "eventId='" + eventId + '\'' +
+                ", eventTimestamp=" + eventTimestamp +
+                ", email='" + email + '\'' +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
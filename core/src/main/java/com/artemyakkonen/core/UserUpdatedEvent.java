@@ -0,0 +1,100 @@
+package com.artemyakkonen.core;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+public class UserUpdatedEvent {
+    private String eventId;
+    private LocalDateTime eventTimestamp;
+    private Long id;
+    private String name;
+    private String email;
+    private Integer age;
+
+    public UserUpdatedEvent() {
+    }
+
+    private UserUpdatedEvent(Long id, String name, String email, Integer age) {
+        this.eventId = UUID.randomUUID().toString();
+        this.eventTimestamp = LocalDateTime.now();
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.age = age;
+    }
+
+    public String getEventId() { return eventId; }
+    public LocalDateTime getEventTimestamp() { return eventTimestamp; }
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public String getEmail() { return email; }
+    public Integer getAge() { return age; }
+
+    public void setEventId(String eventId) { this.eventId = eventId; }
+    public void setEventTimestamp(LocalDateTime eventTimestamp) { this.eventTimestamp = eventTimestamp; }
+    public void setId(Long id) { this.id = id; }
+    public void setName(String name) { this.name = name; }
+    public void setEmail(String email) { this.email = email; }
+    public void setAge(Integer age) { this.age = age; }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private Long id;
+        private String name;
+        private String email;
+        private Integer age;
+
+        public Builder id(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder email(String email) {
+            this.email = email;
+            return this;
+        }
+
+        public Builder age(Integer age) {
+            this.age = age;
+            return this;
+        }
+
+        public UserUpdatedEvent build() {
+            return new UserUpdatedEvent(id, name, email, age);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserUpdatedEvent that = (UserUpdatedEvent) o;
+        return Objects.equals(eventId, that.eventId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventId);
+    }
+
+    @Override
+    public String toString() {
+        return "UserUpdatedEvent{" +
+                "eventId='" + eventId + '\'' +
+                ", eventTimestamp=" + eventTimestamp +
+                ", id=" + id +
+                ", name='" + name + '\'' +
+                ", email='" + email + '\'' +
+                ", age=" + age +
+                '}';
+    }
+}
\ No newline at end of file